@@ -0,0 +1,62 @@
+package ch.unibe.zeeguulibrary.Benchmarks;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import ch.unibe.zeeguulibrary.Core.ZeeguuApiJson;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsHeader;
+import ch.unibe.zeeguulibrary.Testing.CorpusGenerator;
+
+/**
+ * Reading the response of bookmarks_by_day/with_context into MyWords
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BookmarkParsingBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int words;
+
+    private String json;
+    private JSONArray jsonArray;
+
+    @Setup
+    public void setUp() throws JSONException {
+        jsonArray = new CorpusGenerator(42).createBookmarksByDay(words, "de", "en");
+        json = jsonArray.toString();
+    }
+
+    /**
+     * Parsing the JSON text and creating MyWords, as done for every download
+     */
+    @Benchmark
+    public ArrayList<MyWordsHeader> parseJsonAndMyWords() throws JSONException {
+        return ZeeguuApiJson.parseMyWords(new JSONArray(json));
+    }
+
+    /**
+     * Only creating MyWords from the already parsed JSON
+     */
+    @Benchmark
+    public ArrayList<MyWordsHeader> parseMyWords() throws JSONException {
+        return ZeeguuApiJson.parseMyWords(jsonArray);
+    }
+}
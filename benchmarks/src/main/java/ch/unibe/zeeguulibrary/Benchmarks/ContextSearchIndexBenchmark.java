@@ -0,0 +1,104 @@
+package ch.unibe.zeeguulibrary.Benchmarks;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import ch.unibe.zeeguulibrary.Core.ContextSearchIndex;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsHeader;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsItem;
+import ch.unibe.zeeguulibrary.Testing.CorpusGenerator;
+
+/**
+ * Loading the context index from its file and searching it, as ZeeguuAccount.searchContexts
+ * does. The file is written once in a temporary directory, so it is mostly read from the
+ * page cache of the computer and not from the storage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContextSearchIndexBenchmark {
+
+    private static final int LIMIT = 50;
+
+    @Param({"1000", "10000", "50000"})
+    public int contexts;
+
+    private File file;
+    private ContextSearchIndex index;
+    private String twoWords;
+    private String prefix;
+
+    @Setup
+    public void setUp() throws JSONException, IOException {
+        ArrayList<MyWordsHeader> myWords = new CorpusGenerator(42).createMyWords(contexts, "de", "en");
+        HashMap<Long, String> contextsById = new HashMap<>();
+        String middleContext = null;
+        for (MyWordsHeader header : myWords) {
+            for (int i = 0; i < header.getChildrenSize(); i++) {
+                if (!(header.getChild(i) instanceof MyWordsItem))
+                    continue;
+                MyWordsItem item = (MyWordsItem) header.getChild(i);
+                contextsById.put(item.getItemId(), item.getContext());
+                if (contextsById.size() == contexts / 2)
+                    middleContext = item.getContext();
+            }
+        }
+
+        file = File.createTempFile("context_index", null);
+        file.delete();
+        index = new ContextSearchIndex(file);
+        index.update(contextsById);
+        index.compact();
+
+        // Two words of one context, the second one incomplete like while typing
+        String[] words = middleContext.split("[^\\p{L}\\p{N}]+");
+        twoWords = words[0] + " " + words[1].substring(0, Math.max(1, words[1].length() - 1));
+        prefix = words[0].substring(0, Math.min(2, words[0].length()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Reading the dictionary, which happens on the first search after the app started
+     */
+    @Benchmark
+    public int load() throws IOException {
+        return new ContextSearchIndex(file).size();
+    }
+
+    @Benchmark
+    public ArrayList<Long> searchTwoWords() throws IOException {
+        return index.search(twoWords, LIMIT);
+    }
+
+    /**
+     * A short prefix, which matches many words whose postings are all read
+     */
+    @Benchmark
+    public ArrayList<Long> searchPrefix() throws IOException {
+        return index.search(prefix, LIMIT);
+    }
+}
@@ -0,0 +1,81 @@
+package ch.unibe.zeeguulibrary.Benchmarks;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import ch.unibe.zeeguulibrary.MyWords.Item;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsHeader;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsItem;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsSnapshot;
+import ch.unibe.zeeguulibrary.Testing.CorpusGenerator;
+
+/**
+ * The lookups and changes that ZeeguuAccount does on MyWords: deleteWord,
+ * checkMyWordsForTranslation and getMyWordsOfThisLanguage
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MyWordsLookupBenchmark {
+
+    private static final String LANGUAGE_FROM = "de";
+    private static final String LANGUAGE_TO = "en";
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int words;
+
+    private MyWordsSnapshot myWords;
+    private String oldestWord;
+
+    @Setup
+    public void setUp() throws JSONException {
+        myWords = MyWordsSnapshot.EMPTY.next(new CorpusGenerator(42).createMyWords(words, LANGUAGE_FROM, LANGUAGE_TO));
+
+        // The oldest word, found late unless it is one of the common words
+        MyWordsHeader oldestDay = myWords.getHeaders().get(myWords.getHeaders().size() - 1);
+        oldestWord = ((MyWordsItem) oldestDay.getChild(oldestDay.getChildrenSize() - 1)).getLanguageFromWord();
+    }
+
+    /**
+     * Deleting a word in the middle, the snapshot itself is not changed
+     */
+    @Benchmark
+    public MyWordsSnapshot deleteWord() {
+        Item item = myWords.findItem(words / 2);
+        ArrayList<MyWordsHeader> headers = myWords.edit();
+        MyWordsSnapshot.removeWords(headers, Collections.singleton(item.getItemId()));
+        return myWords.next(headers);
+    }
+
+    @Benchmark
+    public MyWordsItem checkMyWordsForTranslationFound() {
+        return myWords.checkMyWordsForTranslation(oldestWord, LANGUAGE_FROM, LANGUAGE_TO);
+    }
+
+    @Benchmark
+    public MyWordsItem checkMyWordsForTranslationNotFound() {
+        return myWords.checkMyWordsForTranslation("unknown", "fr", "it");
+    }
+
+    @Benchmark
+    public ArrayList<String> getMyWordsOfThisLanguage() {
+        return myWords.getWordsOfLanguages(LANGUAGE_FROM, LANGUAGE_TO);
+    }
+}
@@ -0,0 +1,65 @@
+package ch.unibe.zeeguulibrary.Benchmarks;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import ch.unibe.zeeguulibrary.Core.MyWordsStorage;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsHeader;
+import ch.unibe.zeeguulibrary.Testing.CorpusGenerator;
+
+/**
+ * Saving MyWords on the phone and loading it again, in the format used by ZeeguuAccount.
+ * The data stays in memory, so only the serialization is measured and not the storage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MyWordsStorageBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int words;
+
+    private ArrayList<MyWordsHeader> myWords;
+    private String saved;
+
+    @Setup
+    public void setUp() throws JSONException, IOException {
+        myWords = new CorpusGenerator(42).createMyWords(words, "de", "en");
+        saved = save();
+    }
+
+    @Benchmark
+    public String save() throws IOException {
+        StringWriter data = new StringWriter();
+        BufferedWriter bufferedWriter = new BufferedWriter(data);
+        MyWordsStorage.write(bufferedWriter, myWords);
+        bufferedWriter.close();
+        return data.toString();
+    }
+
+    @Benchmark
+    public ArrayList<MyWordsHeader> load() throws IOException {
+        return MyWordsStorage.read(new BufferedReader(new StringReader(saved)));
+    }
+}
@@ -0,0 +1,66 @@
+package ch.unibe.zeeguulibrary.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import ch.unibe.zeeguulibrary.Core.JavaEscapes;
+import ch.unibe.zeeguulibrary.Testing.CorpusGenerator;
+
+/**
+ * Unescaping the text returned by the JavaScript (Utility.unescapeString)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UnescapeBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int words;
+
+    private String text;
+    private final StringBuilder out = new StringBuilder();
+    private final char[] buffer = new char[4096];
+
+    @Setup
+    public void setUp() {
+        text = new CorpusGenerator(42).createEscapedText("de", words);
+    }
+
+    @Benchmark
+    public String unescape() {
+        return JavaEscapes.unescape(text);
+    }
+
+    /**
+     * Into a reused builder, as done for the contexts
+     */
+    @Benchmark
+    public int unescapeIntoBuilder() {
+        out.setLength(0);
+        JavaEscapes.unescape(text, out);
+        return out.length();
+    }
+
+    @Benchmark
+    public int unescapeReader() throws IOException {
+        out.setLength(0);
+        JavaEscapes.unescape(new StringReader(text), out, buffer);
+        return out.length();
+    }
+}
@@ -0,0 +1,238 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Disk cache for the article contents extracted by the server, keyed by the url of the article.
+ * When the cache gets bigger than its maximum size, the least recently used entries are removed.
+ */
+public class ContentCache {
+
+    private static final int VERSION = 1;
+
+    private final File directory;
+    private final long maxSize;
+    private long size;
+    // File name and length of the entries, least recently used first. Read from the directory on
+    // the first use, the modification times only give the order of the last run.
+    private LinkedHashMap<String, Long> entries;
+
+    /**
+     * Content and image of a cached article
+     */
+    public static class Entry {
+        private final String content;
+        private final String image;
+
+        public Entry(String content, String image) {
+            this.content = content;
+            this.image = image;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public String getImage() {
+            return image;
+        }
+    }
+
+    public ContentCache(File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached content for the url, or null if it is not cached
+     */
+    public synchronized Entry get(String url) {
+        initEntries();
+        File file = getFile(url);
+        if (!file.exists()) {
+            // Android deletes cache files itself when the storage is low
+            remove(file);
+            return null;
+        }
+
+        DataInputStream in = null;
+        try {
+            long length = file.length();
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != VERSION)
+                throw new IOException("Unknown version");
+            if (!url.equals(readString(in, length)))
+                return null;
+            Entry entry = new Entry(readString(in, length), readString(in, length));
+
+            // Remember the access for the eviction, the modification time only for the next run
+            if (entries.get(file.getName()) == null)
+                add(file);
+            file.setLastModified(System.currentTimeMillis());
+            return entry;
+        } catch (IOException e) {
+            // Unreadable or corrupt, e.g. written only partly
+            remove(file);
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    public synchronized boolean contains(String url) {
+        return getFile(url).exists();
+    }
+
+    public synchronized void put(String url, String content, String image) throws IOException {
+        initEntries();
+        if (!directory.exists() && !directory.mkdirs())
+            throw new IOException("Could not create cache directory " + directory.getPath());
+
+        File file = getFile(url);
+        remove(file);
+
+        DataOutputStream out = null;
+        boolean written = false;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            out.writeInt(VERSION);
+            writeString(out, url);
+            writeString(out, content);
+            writeString(out, image);
+            out.close();
+            written = true;
+        } finally {
+            close(out);
+            if (!written)
+                file.delete();
+        }
+
+        add(file);
+        trimToSize();
+    }
+
+    public synchronized void clear() {
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        // Read again on the next use
+        entries = null;
+    }
+
+    public synchronized long getSize() {
+        initEntries();
+        return size;
+    }
+
+    //// Eviction ////
+
+    private void initEntries() {
+        if (entries != null)
+            return;
+
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+        size = 0;
+        File[] files = directory.listFiles();
+        if (files == null)
+            return;
+
+        // Oldest access first
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                long difference = lhs.lastModified() - rhs.lastModified();
+                return difference < 0 ? -1 : (difference > 0 ? 1 : 0);
+            }
+        });
+
+        for (File file : files)
+            add(file);
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            new File(directory, entry.getKey()).delete();
+            size -= entry.getValue();
+            iterator.remove();
+        }
+    }
+
+    private void add(File file) {
+        long length = file.length();
+        entries.put(file.getName(), length);
+        size += length;
+    }
+
+    private void remove(File file) {
+        file.delete();
+        Long length = entries.remove(file.getName());
+        if (length != null)
+            size -= length;
+    }
+
+    //// Helpers ////
+
+    private File getFile(String url) {
+        return new File(directory, hash(url));
+    }
+
+    private static String hash(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(url.getBytes("UTF-8"));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest)
+                sb.append(String.format("%02x", b & 0xff));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+
+    // DataOutputStream.writeUTF is limited to 64KB, which is not enough for articles
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = (string == null ? "" : string).getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * @param fileLength no string can be longer than the file, a longer length is corrupt
+     */
+    private static String readString(DataInputStream in, long fileLength) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > fileLength)
+            throw new IOException("Corrupt length " + length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
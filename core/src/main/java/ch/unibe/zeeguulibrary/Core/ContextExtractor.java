@@ -0,0 +1,55 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import java.text.BreakIterator;
+import java.util.Locale;
+
+/**
+ * Extracts the context of a selected term, the sentence(s) of the paragraph that contain it
+ */
+public class ContextExtractor {
+
+    /**
+     * Returns the sentences of the paragraph that contain the term, or the whole paragraph if
+     * the term cannot be found in it
+     */
+    public static String extractContext(String paragraph, String term, Locale locale) {
+        if (paragraph == null)
+            return "";
+
+        String text = paragraph.replaceAll("\\s+", " ").trim();
+        if (term == null || term.trim().equals(""))
+            return text;
+
+        String trimmedTerm = term.trim();
+        int index = text.indexOf(trimmedTerm);
+        if (index < 0)
+            index = text.toLowerCase(locale).indexOf(trimmedTerm.toLowerCase(locale));
+        if (index < 0)
+            return text;
+
+        BreakIterator iterator = BreakIterator.getSentenceInstance(locale);
+        iterator.setText(text);
+
+        // Start of the sentence containing the first character of the term
+        iterator.following(index);
+        int start = iterator.previous();
+        if (start == BreakIterator.DONE)
+            start = 0;
+
+        // End of the sentence containing the last character of the term
+        int end = iterator.following(Math.min(index + trimmedTerm.length(), text.length()) - 1);
+        if (end == BreakIterator.DONE)
+            end = text.length();
+
+        return text.substring(start, end).trim();
+    }
+
+    /**
+     * Converts a language code of the Zeeguu API to a locale
+     */
+    public static Locale getLocale(String languageCode) {
+        if (languageCode == null || languageCode.equals(""))
+            return Locale.getDefault();
+        return new Locale(languageCode.toLowerCase(Locale.ENGLISH));
+    }
+}
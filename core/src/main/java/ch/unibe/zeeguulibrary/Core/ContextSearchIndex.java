@@ -0,0 +1,418 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Inverted index over the contexts of the bookmarks, stored in a file. Only the dictionary (the
+ * words and where their postings are stored in the file) is kept in memory, the postings are
+ * read from the file when a query needs them.
+ *
+ * Changes are kept in memory until there are enough of them, then they are merged into the file.
+ * Results are ordered by recency, which is the order of the bookmark ids.
+ */
+public class ContextSearchIndex {
+
+    private static final int VERSION = 1;
+    // Changed contexts that are kept in memory, more are merged into the file
+    static final int MAX_PENDING_DOCUMENTS = 2000;
+
+    private final File file;
+    private boolean loaded;
+
+    // Part of the index that is in the file: word -> {offset of the postings, length in bytes}
+    private TreeMap<String, long[]> dictionary = new TreeMap<>();
+    private HashSet<Long> documentsOnDisk = new HashSet<>();
+
+    // Signatures of all indexed contexts (in the file or pending), to find the changed ones
+    private HashMap<Long, Integer> signatures = new HashMap<>();
+
+    // Changes that are not in the file yet
+    private TreeMap<String, TreeSet<Long>> pendingPostings = new TreeMap<>();
+    private HashMap<Long, String[]> pendingTokens = new HashMap<>();
+    private HashSet<Long> deleted = new HashSet<>();
+
+    public ContextSearchIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Brings the index up to date with the contexts (bookmark id -> context). Only new and
+     * changed contexts are indexed, the ones that are not in the map anymore are removed.
+     */
+    public synchronized void update(Map<Long, String> contexts) throws IOException {
+        load();
+
+        // Removed contexts
+        ArrayList<Long> removed = new ArrayList<>();
+        for (Long id : signatures.keySet())
+            if (!contexts.containsKey(id))
+                removed.add(id);
+        for (Long id : removed)
+            remove(id);
+        if (pendingDocuments() > MAX_PENDING_DOCUMENTS)
+            compact();
+
+        // New and changed contexts
+        for (Map.Entry<Long, String> entry : contexts.entrySet()) {
+            String context = entry.getValue() == null ? "" : entry.getValue();
+            Integer signature = signatures.get(entry.getKey());
+            if (signature != null && signature == context.hashCode())
+                continue;
+
+            remove(entry.getKey());
+            add(entry.getKey(), context);
+
+            // Also the first sync of a long history is merged in parts, not held in memory at once
+            if (pendingDocuments() > MAX_PENDING_DOCUMENTS)
+                compact();
+        }
+    }
+
+    /**
+     * Returns the ids of the bookmarks whose context contains all words of the query, the last
+     * word may be incomplete. The newest bookmarks come first.
+     */
+    public synchronized ArrayList<Long> search(String query, int limit) throws IOException {
+        load();
+
+        ArrayList<String> tokens = new ArrayList<>();
+        MyWordsSearchIndex.tokenize(query, tokens);
+
+        HashSet<Long> result = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            boolean prefix = i == tokens.size() - 1;
+            HashSet<Long> ids = find(tokens.get(i), prefix);
+
+            if (result == null)
+                result = ids;
+            else
+                result.retainAll(ids);
+
+            if (result.isEmpty())
+                break;
+        }
+
+        ArrayList<Long> sorted = result == null ? new ArrayList<Long>() : new ArrayList<>(result);
+        Collections.sort(sorted, Collections.reverseOrder());
+        return sorted.size() > limit ? new ArrayList<>(sorted.subList(0, limit)) : sorted;
+    }
+
+    public synchronized int size() throws IOException {
+        load();
+        return signatures.size();
+    }
+
+    /**
+     * Number of changed contexts that are not merged into the file yet
+     */
+    synchronized int pendingDocuments() {
+        return pendingTokens.size() + deleted.size();
+    }
+
+    public synchronized void clear() {
+        file.delete();
+        dictionary.clear();
+        documentsOnDisk.clear();
+        signatures.clear();
+        pendingPostings.clear();
+        pendingTokens.clear();
+        deleted.clear();
+        loaded = true;
+    }
+
+    //// Changes in memory ////
+
+    private void add(long id, String context) {
+        LinkedHashSet<String> tokens = new LinkedHashSet<>();
+        MyWordsSearchIndex.tokenize(context, tokens);
+
+        for (String token : tokens) {
+            TreeSet<Long> postings = pendingPostings.get(token);
+            if (postings == null) {
+                postings = new TreeSet<>();
+                pendingPostings.put(token, postings);
+            }
+            postings.add(id);
+        }
+
+        pendingTokens.put(id, tokens.toArray(new String[tokens.size()]));
+        signatures.put(id, context.hashCode());
+    }
+
+    private void remove(long id) {
+        if (signatures.remove(id) == null)
+            return;
+
+        // The postings in the file cannot be changed, they are ignored until the next merge
+        if (documentsOnDisk.contains(id))
+            deleted.add(id);
+
+        String[] tokens = pendingTokens.remove(id);
+        if (tokens != null) {
+            for (String token : tokens) {
+                TreeSet<Long> postings = pendingPostings.get(token);
+                postings.remove(id);
+                if (postings.isEmpty())
+                    pendingPostings.remove(token);
+            }
+        }
+    }
+
+    private HashSet<Long> find(String token, boolean prefix) throws IOException {
+        HashSet<Long> ids = new HashSet<>();
+
+        // Postings in the file
+        SortedMap<String, long[]> diskTerms = prefix
+                ? dictionary.subMap(token, token + Character.MAX_VALUE)
+                : dictionary.subMap(token, token + Character.MIN_VALUE);
+        if (!diskTerms.isEmpty()) {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                for (long[] location : diskTerms.values())
+                    for (long id : readPostings(randomAccessFile, location))
+                        if (!deleted.contains(id))
+                            ids.add(id);
+            } finally {
+                close(randomAccessFile);
+            }
+        }
+
+        // Pending postings
+        SortedMap<String, TreeSet<Long>> memoryTerms = prefix
+                ? pendingPostings.subMap(token, token + Character.MAX_VALUE)
+                : pendingPostings.subMap(token, token + Character.MIN_VALUE);
+        for (TreeSet<Long> postings : memoryTerms.values())
+            ids.addAll(postings);
+
+        return ids;
+    }
+
+    //// File ////
+
+    /**
+     * Reads the dictionary and the signatures from the file, the postings stay in the file
+     */
+    private void load() throws IOException {
+        if (loaded)
+            return;
+        loaded = true;
+
+        if (!file.exists())
+            return;
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != VERSION) {
+                close(in);
+                clear();
+                return;
+            }
+
+            int documents = in.readInt();
+            for (int i = 0; i < documents; i++) {
+                long id = in.readLong();
+                signatures.put(id, in.readInt());
+                documentsOnDisk.add(id);
+            }
+
+            long offset = 8 + documents * 12L + 4;
+            int terms = in.readInt();
+            for (int i = 0; i < terms; i++) {
+                String term = in.readUTF();
+                int length = in.readInt();
+                // readUTF: 2 bytes length + encoded term
+                offset += 2 + utfLength(term) + 4;
+                dictionary.put(term, new long[]{offset, length});
+                skipFully(in, length);
+                offset += length;
+            }
+        } catch (IOException e) {
+            close(in);
+            clear();
+            throw e;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Merges the changes that are in memory into the file
+     */
+    public synchronized void compact() throws IOException {
+        load();
+        if (pendingTokens.isEmpty() && deleted.isEmpty())
+            return;
+
+        File tmpFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+        RandomAccessFile oldFile = file.exists() ? new RandomAccessFile(file, "r") : null;
+
+        TreeMap<String, long[]> newDictionary = new TreeMap<>();
+        try {
+            out.writeInt(VERSION);
+            out.writeInt(signatures.size());
+            for (Map.Entry<Long, Integer> entry : signatures.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+
+            // All words, the ones from the file and the pending ones, in order
+            TreeSet<String> terms = new TreeSet<>(dictionary.keySet());
+            terms.addAll(pendingPostings.keySet());
+
+            ArrayList<byte[]> encodedTerms = new ArrayList<>();
+            ArrayList<String> writtenTerms = new ArrayList<>();
+            for (String term : terms) {
+                TreeSet<Long> postings = new TreeSet<>();
+                long[] location = dictionary.get(term);
+                if (location != null && oldFile != null)
+                    for (long id : readPostings(oldFile, location))
+                        if (!deleted.contains(id))
+                            postings.add(id);
+                TreeSet<Long> pending = pendingPostings.get(term);
+                if (pending != null)
+                    postings.addAll(pending);
+
+                if (!postings.isEmpty()) {
+                    writtenTerms.add(term);
+                    encodedTerms.add(encodePostings(postings));
+                }
+            }
+
+            long offset = 8 + signatures.size() * 12L + 4;
+            out.writeInt(writtenTerms.size());
+            for (int i = 0; i < writtenTerms.size(); i++) {
+                String term = writtenTerms.get(i);
+                byte[] postings = encodedTerms.get(i);
+                out.writeUTF(term);
+                out.writeInt(postings.length);
+                out.write(postings);
+
+                offset += 2 + utfLength(term) + 4;
+                newDictionary.put(term, new long[]{offset, postings.length});
+                offset += postings.length;
+            }
+        } finally {
+            close(out);
+            close(oldFile);
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            file.delete();
+            if (!tmpFile.renameTo(file))
+                throw new IOException("Could not write context index " + file.getPath());
+        }
+
+        dictionary = newDictionary;
+        documentsOnDisk = new HashSet<>(signatures.keySet());
+        pendingPostings.clear();
+        pendingTokens.clear();
+        deleted.clear();
+    }
+
+    //// Encoding of the postings: sorted ids, stored as variable length differences ////
+
+    private static byte[] encodePostings(TreeSet<Long> ids) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(ids.size() * 2);
+        long last = 0;
+        Iterator<Long> iterator = ids.iterator();
+        while (iterator.hasNext()) {
+            long id = iterator.next();
+            long delta = id - last;
+            last = id;
+            // Zigzag, so that the (negative) first id is also short
+            long value = (delta << 1) ^ (delta >> 63);
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+        return out.toByteArray();
+    }
+
+    private static long[] readPostings(RandomAccessFile file, long[] location) throws IOException {
+        byte[] bytes = new byte[(int) location[1]];
+        file.seek(location[0]);
+        file.readFully(bytes);
+
+        long[] ids = new long[bytes.length];
+        int count = 0;
+        long last = 0;
+        int position = 0;
+        while (position < bytes.length) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            last += (value >>> 1) ^ -(value & 1);
+            ids[count++] = last;
+        }
+
+        long[] result = new long[count];
+        System.arraycopy(ids, 0, result, 0, count);
+        return result;
+    }
+
+    //// Helpers ////
+
+    // Length of a string in the modified UTF-8 of DataOutputStream.writeUTF
+    private static int utfLength(String string) {
+        int length = 0;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F)
+                length += 1;
+            else if (c > 0x07FF)
+                length += 3;
+            else
+                length += 2;
+        }
+        return length;
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        int skipped = 0;
+        while (skipped < length) {
+            int bytes = in.skipBytes(length - skipped);
+            if (bytes <= 0)
+                throw new IOException("Unexpected end of context index");
+            skipped += bytes;
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
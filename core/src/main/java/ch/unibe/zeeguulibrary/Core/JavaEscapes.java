@@ -0,0 +1,235 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Escape sequences of Java strings, as used in the strings returned by the JavaScript
+ */
+public class JavaEscapes {
+
+    private static final int STREAM_BUFFER_SIZE = 4096;
+
+    /**
+     *  Unescapes a string that contains standard Java escape sequences.
+     *  (algorithm: https://gist.github.com/uklimaschewski/6741769)
+     */
+    public static String unescape(String string) {
+        // Nothing to do, the string itself is returned
+        if (string.indexOf('\\') == -1)
+            return string;
+
+        StringBuilder sb = new StringBuilder(string.length());
+        unescape(string, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Appends the unescaped string to the builder, which can be reused for the next string
+     */
+    public static void unescape(CharSequence string, StringBuilder out) {
+        Decoder decoder = new Decoder(out);
+        decoder.decode(string, 0, string.length());
+        decoder.finish();
+    }
+
+    /**
+     * Appends everything the reader returns unescaped to the builder, without reading it into
+     * a string first
+     */
+    public static void unescape(Reader reader, StringBuilder out) throws IOException {
+        unescape(reader, out, new char[STREAM_BUFFER_SIZE]);
+    }
+
+    /**
+     * Same as unescape(Reader, StringBuilder), with a buffer that can be reused for the next reader
+     */
+    public static void unescape(Reader reader, StringBuilder out, char[] buffer) throws IOException {
+        Decoder decoder = new Decoder(out);
+        int read;
+        while ((read = reader.read(buffer)) != -1)
+            decoder.decode(buffer, 0, read);
+        decoder.finish();
+    }
+
+    /**
+     * Unescapes text that arrives in parts, an escape sequence can be split between two parts.
+     * Does not allocate anything besides the growth of the output builder.
+     */
+    public static class Decoder {
+
+        private static final int TEXT = 0;
+        private static final int ESCAPE = 1;
+        private static final int OCTAL = 2;
+        private static final int UNICODE = 3;
+
+        private final StringBuilder out;
+        private int state = TEXT;
+        // Value and digits of the current octal or unicode escape
+        private int value;
+        private int digits;
+        // Characters after \\u, kept until it is known whether there are four of them
+        private final char[] unicode = new char[4];
+
+        public Decoder(StringBuilder out) {
+            this.out = out;
+        }
+
+        public void decode(CharSequence text, int start, int end) {
+            int i = start;
+            while (i < end) {
+                if (state == TEXT) {
+                    // Copy everything up to the next backslash at once
+                    int run = i;
+                    while (run < end && text.charAt(run) != '\\')
+                        run++;
+                    out.append(text, i, run);
+                    if (run == end)
+                        return;
+                    state = ESCAPE;
+                    i = run + 1;
+                } else if (decode(text.charAt(i))) {
+                    i++;
+                }
+            }
+        }
+
+        public void decode(char[] text, int start, int end) {
+            int i = start;
+            while (i < end) {
+                if (state == TEXT) {
+                    int run = i;
+                    while (run < end && text[run] != '\\')
+                        run++;
+                    out.append(text, i, run - i);
+                    if (run == end)
+                        return;
+                    state = ESCAPE;
+                    i = run + 1;
+                } else if (decode(text[i])) {
+                    i++;
+                }
+            }
+        }
+
+        /**
+         * Handles a character inside an escape sequence
+         *
+         * @return false if the character ended an octal escape and must be handled again as text
+         */
+        private boolean decode(char ch) {
+            switch (state) {
+                case ESCAPE:
+                    if (ch >= '0' && ch <= '7') {
+                        state = OCTAL;
+                        value = ch - '0';
+                        digits = 1;
+                        return true;
+                    }
+                    state = TEXT;
+                    switch (ch) {
+                        case '\\':
+                            out.append('\\');
+                            break;
+                        case 'b':
+                            out.append('\b');
+                            break;
+                        case 'f':
+                            out.append('\f');
+                            break;
+                        case 'n':
+                            out.append('\n');
+                            break;
+                        case 'r':
+                            out.append('\r');
+                            break;
+                        case 't':
+                            out.append('\t');
+                            break;
+                        case '\"':
+                            out.append('\"');
+                            break;
+                        case '\'':
+                            out.append('\'');
+                            break;
+                        case 'u':
+                            state = UNICODE;
+                            digits = 0;
+                            break;
+                        default:
+                            // Unknown escapes are replaced by the backslash
+                            out.append('\\');
+                    }
+                    return true;
+
+                case OCTAL:
+                    if (ch < '0' || ch > '7') {
+                        out.append((char) value);
+                        state = TEXT;
+                        return false;
+                    }
+                    value = value * 8 + ch - '0';
+                    if (++digits == 3) {
+                        out.append((char) value);
+                        state = TEXT;
+                    }
+                    return true;
+
+                case UNICODE:
+                    unicode[digits++] = ch;
+                    if (digits == 4) {
+                        // Like Integer.parseInt, which was used before, a sign is accepted in front
+                        boolean negative = unicode[0] == '-';
+                        int first = negative || unicode[0] == '+' ? 1 : 0;
+                        value = 0;
+                        for (int j = first; j < 4; j++) {
+                            int digitValue = Character.digit(unicode[j], 16);
+                            if (digitValue == -1)
+                                throw new NumberFormatException("Invalid unicode escape: \\u" + new String(unicode));
+                            value = value * 16 + digitValue;
+                        }
+                        if (negative && value != 0)
+                            throw new IllegalArgumentException("Negative unicode escape: \\u" + new String(unicode));
+                        out.append((char) value);
+                        state = TEXT;
+                    }
+                    return true;
+
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+
+        /**
+         * Ends the text, an unfinished escape sequence at the end is written as it is
+         */
+        public void finish() {
+            while (state != TEXT) {
+                switch (state) {
+                    case ESCAPE:
+                        out.append('\\');
+                        state = TEXT;
+                        break;
+                    case OCTAL:
+                        out.append((char) value);
+                        state = TEXT;
+                        break;
+                    case UNICODE:
+                        // Less than four characters after \\u: they are text, the backslash is dropped.
+                        // Decoding them only writes to the part of the array that was already read.
+                        out.append('u');
+                        state = TEXT;
+                        decode(unicode, 0, digits);
+                        break;
+                }
+            }
+        }
+
+        /**
+         * Forgets an unfinished escape sequence, to decode a new text
+         */
+        public void reset() {
+            state = TEXT;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ch.unibe.zeeguulibrary.Core;
+
+/**
+ * Histogram of durations in milliseconds with exponentially growing buckets, so that it needs
+ * little memory but the percentiles are still precise to about 10%. Not thread safe.
+ */
+public class LatencyHistogram {
+
+    private static final double BUCKET_GROWTH = 1.1;
+    private static final long MAX_DURATION = 10 * 60 * 1000;
+
+    // Upper bounds of the buckets, the last bucket also takes all longer durations
+    private static final long[] BOUNDS = createBounds();
+
+    private final int[] counts = new int[BOUNDS.length];
+    private int count;
+    private long sum;
+    private long max;
+
+    private static long[] createBounds() {
+        int size = 1;
+        for (double bound = 1; bound < MAX_DURATION; bound = Math.max(bound + 1, bound * BUCKET_GROWTH))
+            size++;
+
+        long[] bounds = new long[size];
+        double bound = 1;
+        for (int i = 0; i < size; i++) {
+            bounds[i] = (long) bound;
+            bound = Math.max(bound + 1, bound * BUCKET_GROWTH);
+        }
+        return bounds;
+    }
+
+    public void record(long duration) {
+        duration = Math.max(0, duration);
+
+        // Binary search for the first bucket that is big enough
+        int low = 0;
+        int high = BOUNDS.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (BOUNDS[middle] < duration)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        counts[low]++;
+        count++;
+        sum += duration;
+        max = Math.max(max, duration);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * Returns the duration that this part (0 to 1) of the recorded durations did not exceed,
+     * e.g. 0.95 for the 95th percentile
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return i == counts.length - 1 ? max : Math.min(BOUNDS[i], max);
+        }
+        return max;
+    }
+
+    public void clear() {
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = 0;
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+}
@@ -0,0 +1,267 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix index over the words, translations and contexts of MyWords. Every word of an entry is
+ * normalized (lower case, without accents) and added to a trie, so that all entries containing a
+ * word starting with the typed text can be found without going through all entries.
+ * Entries can be added and removed one by one, so the index can follow the changes of MyWords.
+ */
+public class MyWordsSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final Node root = new Node();
+
+    // The tokens of every entry, needed to remove it again
+    private final HashMap<Long, String[]> tokensById = new HashMap<>();
+    private final HashMap<Long, Integer> signaturesById = new HashMap<>();
+
+    /**
+     * Adds an entry, or updates it if the texts changed since it was added
+     */
+    public synchronized void add(long id, String... texts) {
+        int signature = Arrays.hashCode(texts);
+        Integer oldSignature = signaturesById.get(id);
+        if (oldSignature != null) {
+            if (oldSignature == signature)
+                return; // nothing changed
+            remove(id);
+        }
+
+        HashSet<String> tokens = new HashSet<>();
+        for (String text : texts)
+            tokenize(text, tokens);
+
+        for (String token : tokens)
+            root.getOrCreate(token, 0).addId(id);
+
+        tokensById.put(id, tokens.toArray(new String[tokens.size()]));
+        signaturesById.put(id, signature);
+    }
+
+    public synchronized void remove(long id) {
+        String[] tokens = tokensById.remove(id);
+        signaturesById.remove(id);
+        if (tokens == null)
+            return;
+
+        for (String token : tokens)
+            root.removeId(token, 0, id);
+    }
+
+    /**
+     * Removes all entries that are not in the given set of ids, and the nodes of their words
+     * that no other entry contains
+     */
+    public synchronized void retainAll(Set<Long> ids) {
+        Iterator<Map.Entry<Long, String[]>> iterator = tokensById.entrySet().iterator();
+        ArrayList<Long> removed = new ArrayList<>();
+        while (iterator.hasNext()) {
+            Long id = iterator.next().getKey();
+            if (!ids.contains(id))
+                removed.add(id);
+        }
+
+        for (Long id : removed)
+            remove(id);
+    }
+
+    public synchronized void clear() {
+        root.clear();
+        tokensById.clear();
+        signaturesById.clear();
+    }
+
+    public synchronized int size() {
+        return tokensById.size();
+    }
+
+    /**
+     * Number of nodes of the trie, the root included
+     */
+    synchronized int nodeCount() {
+        return root.count();
+    }
+
+    /**
+     * Returns the ids of the entries that contain a word starting with every word of the query
+     */
+    public synchronized HashSet<Long> search(String query) {
+        ArrayList<String> queryTokens = new ArrayList<>();
+        tokenize(query, queryTokens);
+
+        HashSet<Long> result = null;
+        for (String token : queryTokens) {
+            HashSet<Long> ids = new HashSet<>();
+            Node node = root.get(token, 0);
+            if (node != null)
+                node.collect(ids);
+
+            if (result == null) {
+                result = ids;
+            } else {
+                result.retainAll(ids);
+            }
+
+            if (result.isEmpty())
+                break;
+        }
+
+        return result == null ? new HashSet<Long>() : result;
+    }
+
+    //// Normalization ////
+
+    /**
+     * Splits the text into normalized words
+     */
+    static void tokenize(String text, Collection<String> tokens) {
+        if (text == null)
+            return;
+
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+    }
+
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("");
+    }
+
+    //// Trie ////
+
+    private static class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        // Children sorted by their character
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        // Most nodes are only a part of a longer word, their set is only created when needed
+        private HashSet<Long> ids;
+
+        Node get(String token, int position) {
+            if (position == token.length())
+                return this;
+
+            int index = Arrays.binarySearch(keys, token.charAt(position));
+            return index < 0 ? null : children[index].get(token, position + 1);
+        }
+
+        Node getOrCreate(String token, int position) {
+            if (position == token.length())
+                return this;
+
+            char key = token.charAt(position);
+            int index = Arrays.binarySearch(keys, key);
+            if (index < 0) {
+                index = -index - 1;
+
+                char[] newKeys = new char[keys.length + 1];
+                Node[] newChildren = new Node[children.length + 1];
+                System.arraycopy(keys, 0, newKeys, 0, index);
+                System.arraycopy(children, 0, newChildren, 0, index);
+                newKeys[index] = key;
+                newChildren[index] = new Node();
+                System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+                System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+
+                keys = newKeys;
+                children = newChildren;
+            }
+
+            return children[index].getOrCreate(token, position + 1);
+        }
+
+        void addId(long id) {
+            if (ids == null)
+                ids = new HashSet<>(2);
+            ids.add(id);
+        }
+
+        /**
+         * Removes the id from the node of the token and the nodes that are empty afterwards
+         *
+         * @return whether this node is empty and can be removed from its parent
+         */
+        boolean removeId(String token, int position, long id) {
+            if (position == token.length()) {
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty())
+                        ids = null;
+                }
+            } else {
+                int index = Arrays.binarySearch(keys, token.charAt(position));
+                if (index >= 0 && children[index].removeId(token, position + 1, id))
+                    removeChild(index);
+            }
+            return ids == null && children.length == 0;
+        }
+
+        private void removeChild(int index) {
+            if (keys.length == 1) {
+                keys = NO_KEYS;
+                children = NO_CHILDREN;
+                return;
+            }
+
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        /**
+         * Adds the ids of this node and all nodes below it
+         */
+        void collect(Set<Long> result) {
+            if (ids != null)
+                result.addAll(ids);
+            for (Node child : children)
+                child.collect(result);
+        }
+
+        /**
+         * Number of nodes, this one included
+         */
+        int count() {
+            int count = 1;
+            for (Node child : children)
+                count += child.count();
+            return count;
+        }
+
+        void clear() {
+            keys = NO_KEYS;
+            children = NO_CHILDREN;
+            ids = null;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import ch.unibe.zeeguulibrary.MyWords.MyWordsHeader;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsItem;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsSnapshot;
+
+/**
+ * Text format in which MyWords is saved on the phone: the number of days, then for every day
+ * its name followed by its entries (see MyWordsHeader.write)
+ *
+ * Single words that are added or deleted are appended to a change log instead, which is applied
+ * to MyWords after reading it, until the next complete save replaces both.
+ */
+public class MyWordsStorage {
+
+    private static final String ADDITION = "+";
+    private static final String DELETION = "-";
+    // Ends every change, so that a change whose last line was cut off is recognised. Every change
+    // starts with an empty line, so that its first line is not appended to a line that was cut off.
+    private static final String END = ".";
+    // Starts every value of an addition, so that a value of a torn addition is never taken for
+    // the start or the end of a change
+    private static final String VALUE = " ";
+
+    public static void write(BufferedWriter bufferedWriter, List<MyWordsHeader> myWords) throws IOException {
+        bufferedWriter.write("" + myWords.size());
+        bufferedWriter.newLine();
+        for (MyWordsHeader r : myWords) {
+            bufferedWriter.write(r.getName());
+            bufferedWriter.newLine();
+            r.write(bufferedWriter);
+            bufferedWriter.flush();
+        }
+    }
+
+    public static ArrayList<MyWordsHeader> read(BufferedReader bufferedReader) throws IOException {
+        ArrayList<MyWordsHeader> myWords = new ArrayList<>();
+
+        int size = Integer.parseInt(bufferedReader.readLine());
+        for (int i = 0; i < size; i++) {
+            //get the name of the header group and create it
+            MyWordsHeader r = new MyWordsHeader(bufferedReader.readLine().trim());
+            //read all entries from the group and add it to the list
+            r.read(bufferedReader);
+            myWords.add(r);
+        }
+        return myWords;
+    }
+
+    //// Change log ////
+
+    /**
+     * Appends a word that was added with MyWordsSnapshot.addWord
+     */
+    public static void writeAddition(BufferedWriter bufferedWriter, String day, MyWordsItem item,
+                                     String title, String url) throws IOException {
+        String[] values = {day, title, url, Long.toString(item.getItemId()),
+                item.getLanguageFromWord(), item.getLanguageToWord(), item.getContext(),
+                item.getLanguageFrom(), item.getLanguageTo()};
+        bufferedWriter.newLine();
+        bufferedWriter.write(ADDITION);
+        bufferedWriter.newLine();
+        for (String value : values) {
+            bufferedWriter.write(VALUE + value);
+            bufferedWriter.newLine();
+        }
+        bufferedWriter.write(END);
+        bufferedWriter.newLine();
+        bufferedWriter.flush();
+    }
+
+    /**
+     * Appends words that were removed with MyWordsSnapshot.removeWords
+     */
+    public static void writeDeletion(BufferedWriter bufferedWriter, Collection<Long> ids) throws IOException {
+        bufferedWriter.newLine();
+        bufferedWriter.write(DELETION);
+        bufferedWriter.newLine();
+        bufferedWriter.write(Integer.toString(ids.size()));
+        bufferedWriter.newLine();
+        for (long id : ids) {
+            bufferedWriter.write(Long.toString(id));
+            bufferedWriter.newLine();
+        }
+        bufferedWriter.write(END);
+        bufferedWriter.newLine();
+        bufferedWriter.flush();
+    }
+
+    /**
+     * Applies the changes of the log to MyWords, in the order in which they were made.
+     * A change that was not written completely (e.g. when the app was killed) is skipped, the
+     * reading continues with the next change that was appended after it.
+     *
+     * @return the number of changes that were applied
+     */
+    public static int readChanges(BufferedReader bufferedReader, List<MyWordsHeader> myWords) throws IOException {
+        // The log has at most a few hundred lines, a torn change is easier to skip in memory
+        ArrayList<String> lines = new ArrayList<>();
+        String line;
+        while ((line = bufferedReader.readLine()) != null)
+            lines.add(line);
+
+        int changes = 0;
+        int position = 0;
+        while (position < lines.size()) {
+            int next = applyChange(lines, position, myWords);
+            if (next != -1) {
+                changes++;
+                position = next;
+            } else {
+                // Torn: the next change starts at one of the following lines
+                do {
+                    position++;
+                } while (position < lines.size() && !lines.get(position).equals(ADDITION)
+                        && !lines.get(position).equals(DELETION));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Applies the change that starts at the position if it is complete
+     *
+     * @return the position after the change, or -1 if it is incomplete and was not applied
+     */
+    private static int applyChange(List<String> lines, int position, List<MyWordsHeader> myWords) {
+        try {
+            String type = lines.get(position);
+            if (type.equals(ADDITION)) {
+                int end = position + 10;
+                if (end >= lines.size() || !lines.get(end).equals(END))
+                    return -1;
+                String[] change = new String[9];
+                for (int i = 0; i < change.length; i++) {
+                    String value = lines.get(position + 1 + i);
+                    if (!value.startsWith(VALUE))
+                        return -1;
+                    change[i] = value.substring(VALUE.length());
+                }
+                MyWordsItem item = new MyWordsItem(Long.parseLong(change[3].trim()), change[4],
+                        change[5], change[6], change[7], change[8]);
+                MyWordsSnapshot.addWord(myWords, change[0], item, change[1], change[2]);
+                return end + 1;
+            } else if (type.equals(DELETION)) {
+                if (position + 1 >= lines.size())
+                    return -1;
+                int size = Integer.parseInt(lines.get(position + 1).trim());
+                int end = position + 2 + size;
+                if (size < 0 || end >= lines.size() || !lines.get(end).equals(END))
+                    return -1;
+                HashSet<Long> ids = new HashSet<>();
+                for (String id : lines.subList(position + 2, end))
+                    ids.add(Long.parseLong(id.trim()));
+                MyWordsSnapshot.removeWords(myWords, ids);
+                return end + 1;
+            }
+        } catch (NumberFormatException e) {
+            // A line of another change
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,54 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import java.util.Locale;
+
+/**
+ * Durations of the phases of loading one page in the Zeeguu WebView, in milliseconds
+ */
+public class PageTimings {
+
+    public enum Phase {
+        // From the start of the navigation until the page finished loading
+        PAGE_LOAD,
+        // Reading the css and javascript from the assets
+        ASSET_LOAD,
+        // Until the injected scripts have run in the page
+        INJECTION,
+        // Until the words of MyWords are highlighted in the page
+        HIGHLIGHT,
+        // Setting the title of the page in the action bar
+        TITLE_UPDATE
+    }
+
+    private final String url;
+    private final long[] durations;
+    private final int highlightedWords;
+
+    public PageTimings(String url, long pageLoad, long assetLoad, long injection, long highlight, long titleUpdate,
+                       int highlightedWords) {
+        this.url = url;
+        this.durations = new long[]{pageLoad, assetLoad, injection, highlight, titleUpdate};
+        this.highlightedWords = highlightedWords;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public long getDuration(Phase phase) {
+        return durations[phase.ordinal()];
+    }
+
+    /**
+     * Number of occurrences of MyWords that are highlighted in the page
+     */
+    public int getHighlightedWords() {
+        return highlightedWords;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s: load %d ms, assets %d ms, injection %d ms, highlight %d ms (%d highlighted), title %d ms",
+                url, durations[0], durations[1], durations[2], durations[3], highlightedWords, durations[4]);
+    }
+}
@@ -0,0 +1,111 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Summary of the timings of the last pages, to see which phase of the page load dominates.
+ * Thread safe.
+ */
+public class PageTimingsSummary {
+
+    private final int size;
+    private final ArrayDeque<PageTimings> pages;
+
+    /**
+     * @param size number of pages that are summarized, older pages are dropped
+     */
+    public PageTimingsSummary(int size) {
+        this.size = size;
+        this.pages = new ArrayDeque<>(size);
+    }
+
+    public synchronized void add(PageTimings timings) {
+        if (pages.size() == size)
+            pages.removeFirst();
+        pages.addLast(timings);
+    }
+
+    public synchronized List<PageTimings> getPages() {
+        return new ArrayList<>(pages);
+    }
+
+    public synchronized int getPageCount() {
+        return pages.size();
+    }
+
+    public synchronized long getMean(PageTimings.Phase phase) {
+        if (pages.isEmpty())
+            return 0;
+
+        long sum = 0;
+        for (PageTimings page : pages)
+            sum += page.getDuration(phase);
+        return sum / pages.size();
+    }
+
+    public long getMedian(PageTimings.Phase phase) {
+        long[] durations = getDurations(phase);
+        return durations.length == 0 ? 0 : durations[durations.length / 2];
+    }
+
+    public long getMax(PageTimings.Phase phase) {
+        long[] durations = getDurations(phase);
+        return durations.length == 0 ? 0 : durations[durations.length - 1];
+    }
+
+    public synchronized int getMeanHighlightedWords() {
+        if (pages.isEmpty())
+            return 0;
+
+        long sum = 0;
+        for (PageTimings page : pages)
+            sum += page.getHighlightedWords();
+        return (int) (sum / pages.size());
+    }
+
+    /**
+     * Returns the phase after the page load that takes the longest on average, or null if
+     * there are no pages yet
+     */
+    public PageTimings.Phase getDominantPhase() {
+        if (getPageCount() == 0)
+            return null;
+
+        PageTimings.Phase dominant = null;
+        long longest = -1;
+        for (PageTimings.Phase phase : PageTimings.Phase.values()) {
+            if (phase == PageTimings.Phase.PAGE_LOAD)
+                continue;
+            long mean = getMean(phase);
+            if (mean > longest) {
+                longest = mean;
+                dominant = phase;
+            }
+        }
+        return dominant;
+    }
+
+    private synchronized long[] getDurations(PageTimings.Phase phase) {
+        long[] durations = new long[pages.size()];
+        int i = 0;
+        for (PageTimings page : pages)
+            durations[i++] = page.getDuration(phase);
+        Arrays.sort(durations);
+        return durations;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(pages.size()).append(" pages, mean/median/max:");
+        for (PageTimings.Phase phase : PageTimings.Phase.values())
+            summary.append(String.format(Locale.US, " %s %d/%d/%d ms,", phase.name().toLowerCase(Locale.US),
+                    getMean(phase), getMedian(phase), getMax(phase)));
+        summary.append(" highlighted words ").append(getMeanHighlightedWords());
+        return summary.toString();
+    }
+}
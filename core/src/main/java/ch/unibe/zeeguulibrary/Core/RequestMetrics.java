@@ -0,0 +1,212 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Counts, errors, payload sizes and latencies of the requests to the API, per endpoint.
+ * The latency of a request is split into the time it waited in the queue and the time it
+ * spent on the network. Thread safe.
+ */
+public class RequestMetrics {
+
+    private final TreeMap<String, Endpoint> endpoints = new TreeMap<>();
+    private final CopyOnWriteArrayList<Reporter> reporters = new CopyOnWriteArrayList<>();
+    private final int reportInterval;
+    private int requestsSinceReport;
+
+    /**
+     * Receives the statistics of all endpoints, on the thread that finished the last request
+     */
+    public interface Reporter {
+        void report(List<EndpointStatistics> statistics);
+    }
+
+    /**
+     * Statistics of one endpoint at the time they were taken, durations in milliseconds
+     */
+    public static class EndpointStatistics {
+        private final String endpoint;
+        private final int requests;
+        private final int errors;
+        private final long requestBytes;
+        private final long responseBytes;
+        private final long[] total;
+        private final long[] queue;
+        private final long[] network;
+
+        private EndpointStatistics(String endpoint, Endpoint data) {
+            this.endpoint = endpoint;
+            this.requests = data.requests;
+            this.errors = data.errors;
+            this.requestBytes = data.requestBytes;
+            this.responseBytes = data.responseBytes;
+            this.total = summarize(data.total);
+            this.queue = summarize(data.queue);
+            this.network = summarize(data.network);
+        }
+
+        // p50, p95, p99, max
+        private static long[] summarize(LatencyHistogram histogram) {
+            return new long[]{histogram.getPercentile(0.5), histogram.getPercentile(0.95),
+                    histogram.getPercentile(0.99), histogram.getMax()};
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public int getRequests() {
+            return requests;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+
+        public long getRequestBytes() {
+            return requestBytes;
+        }
+
+        public long getResponseBytes() {
+            return responseBytes;
+        }
+
+        public long getTotalP50() {
+            return total[0];
+        }
+
+        public long getTotalP95() {
+            return total[1];
+        }
+
+        public long getTotalP99() {
+            return total[2];
+        }
+
+        public long getTotalMax() {
+            return total[3];
+        }
+
+        public long getQueueP50() {
+            return queue[0];
+        }
+
+        public long getQueueP95() {
+            return queue[1];
+        }
+
+        public long getQueueP99() {
+            return queue[2];
+        }
+
+        public long getNetworkP50() {
+            return network[0];
+        }
+
+        public long getNetworkP95() {
+            return network[1];
+        }
+
+        public long getNetworkP99() {
+            return network[2];
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %d requests, %d errors, %d/%d bytes, " +
+                            "total p50/p95/p99/max %d/%d/%d/%d ms, queue %d/%d/%d ms, network %d/%d/%d ms",
+                    endpoint, requests, errors, requestBytes, responseBytes,
+                    total[0], total[1], total[2], total[3], queue[0], queue[1], queue[2],
+                    network[0], network[1], network[2]);
+        }
+    }
+
+    private static class Endpoint {
+        int requests;
+        int errors;
+        long requestBytes;
+        long responseBytes;
+        final LatencyHistogram total = new LatencyHistogram();
+        final LatencyHistogram queue = new LatencyHistogram();
+        final LatencyHistogram network = new LatencyHistogram();
+    }
+
+    /**
+     * @param reportInterval the reporters get the statistics after this number of requests,
+     *                       0 to only report when report() is called
+     */
+    public RequestMetrics(int reportInterval) {
+        this.reportInterval = reportInterval;
+    }
+
+    public void addReporter(Reporter reporter) {
+        reporters.addIfAbsent(reporter);
+    }
+
+    public void removeReporter(Reporter reporter) {
+        reporters.remove(reporter);
+    }
+
+    /**
+     * Records a finished request, durations in milliseconds
+     */
+    public void record(String endpoint, long queueTime, long networkTime, long totalTime,
+                       long requestBytes, long responseBytes, boolean error) {
+        boolean report;
+        synchronized (this) {
+            Endpoint data = endpoints.get(endpoint);
+            if (data == null) {
+                data = new Endpoint();
+                endpoints.put(endpoint, data);
+            }
+
+            data.requests++;
+            if (error)
+                data.errors++;
+            data.requestBytes += requestBytes;
+            data.responseBytes += responseBytes;
+            data.total.record(totalTime);
+            data.queue.record(queueTime);
+            data.network.record(networkTime);
+
+            requestsSinceReport++;
+            report = reportInterval > 0 && requestsSinceReport >= reportInterval;
+        }
+
+        if (report)
+            report();
+    }
+
+    public synchronized List<EndpointStatistics> getStatistics() {
+        ArrayList<EndpointStatistics> statistics = new ArrayList<>(endpoints.size());
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet())
+            statistics.add(new EndpointStatistics(entry.getKey(), entry.getValue()));
+        return statistics;
+    }
+
+    /**
+     * Gives the current statistics to all reporters
+     */
+    public void report() {
+        synchronized (this) {
+            requestsSinceReport = 0;
+        }
+
+        if (reporters.isEmpty())
+            return;
+
+        List<EndpointStatistics> statistics = getStatistics();
+        for (Reporter reporter : reporters)
+            reporter.report(statistics);
+    }
+
+    public synchronized void clear() {
+        endpoints.clear();
+        requestsSinceReport = 0;
+    }
+}
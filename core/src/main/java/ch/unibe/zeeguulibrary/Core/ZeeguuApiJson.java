@@ -0,0 +1,112 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.unibe.zeeguulibrary.MyWords.MyWordsHeader;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsInfoHeader;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsItem;
+
+/**
+ * Creates the JSON bodies sent to the Zeeguu API and reads its JSON responses,
+ * independent of how the requests are sent
+ */
+public class ZeeguuApiJson {
+
+    /**
+     * Body for get_difficulty_for_text and get_learnability_for_text: {"texts": [{"content", "id"}]}
+     */
+    public static JSONObject createTextsRequest(List<? extends Map<String, String>> texts) throws JSONException {
+        JSONArray jsonTexts = new JSONArray();
+
+        for (Map<String, String> text : texts) {
+            JSONObject jsonText = new JSONObject();
+            jsonText.put("content", text.get("content"));
+            jsonText.put("id", text.get("id"));
+            jsonTexts.put(jsonText);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("texts", jsonTexts);
+        return json;
+    }
+
+    /**
+     * Body for get_content_from_url: {"urls": [{"url", "id"}], "timeout"}
+     */
+    public static JSONObject createUrlsRequest(List<? extends Map<String, String>> urls, int timeout) throws JSONException {
+        JSONArray jsonUrls = new JSONArray();
+
+        for (Map<String, String> url : urls) {
+            JSONObject jsonUrl = new JSONObject();
+            jsonUrl.put("url", url.get("url"));
+            jsonUrl.put("id", url.get("id"));
+            jsonUrls.put(jsonUrl);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("urls", jsonUrls);
+        json.put("timeout", timeout);
+        return json;
+    }
+
+    /**
+     * Reads an array of objects from the response, every object becomes a map with the given keys
+     */
+    public static ArrayList<HashMap<String, String>> parseList(JSONObject response, String name, String... keys) throws JSONException {
+        JSONArray jsonArray = response.getJSONArray(name);
+        ArrayList<HashMap<String, String>> list = new ArrayList<>(jsonArray.length());
+
+        for (int i = 0; i < jsonArray.length(); i++) {
+            JSONObject json = jsonArray.getJSONObject(i);
+            HashMap<String, String> entry = new HashMap<>(keys.length * 2);
+            for (String key : keys)
+                entry.put(key, json.getString(key));
+            list.add(entry);
+        }
+
+        return list;
+    }
+
+    /**
+     * Creates the MyWords list from the bookmarks grouped by day
+     */
+    public static ArrayList<MyWordsHeader> parseMyWords(JSONArray allBookmarks) throws JSONException {
+        ArrayList<MyWordsHeader> myWords = new ArrayList<>();
+
+        for (int j = 0; j < allBookmarks.length(); j++) {
+            JSONObject bookmark = allBookmarks.getJSONObject(j);
+            MyWordsHeader header = new MyWordsHeader(bookmark.getString("date"));
+            myWords.add(header);
+            JSONArray bookmarks = bookmark.getJSONArray("bookmarks");
+            String title = "";
+
+            for (int i = 0; i < bookmarks.length(); i++) {
+                JSONObject translation = bookmarks.getJSONObject(i);
+                //add title when a new one is
+                if (!title.equals(translation.getString("title"))) {
+                    title = translation.getString("title");
+                    String url = translation.getString("url");
+                    header.addChild(new MyWordsInfoHeader(title, url));
+                }
+                //add word as entry to list
+                int id = translation.getInt("id");
+                String languageFromWord = translation.getString("from");
+                String languageFrom = translation.getString("from_lang");
+                String languageToWord = translation.getJSONArray("to").get(0).toString();
+                String languageTo = translation.getString("to_lang");
+                String context = translation.getString("context");
+
+                header.addChild(new MyWordsItem(id, languageFromWord, languageToWord, context, languageFrom, languageTo));
+            }
+        }
+
+        return myWords;
+    }
+}
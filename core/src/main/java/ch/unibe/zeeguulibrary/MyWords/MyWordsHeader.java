@@ -1,89 +1,174 @@
 package ch.unibe.zeeguulibrary.MyWords;
 
-import android.view.LayoutInflater;
-import android.view.View;
-import android.widget.ImageView;
-import android.widget.TextView;
-
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-
-import ch.unibe.R;
+import java.util.Set;
 
 /**
  * Zeeguu Application
  * Created by Pascal on 24/01/15.
  */
 public class MyWordsHeader {
+    private final long id;
     private final String name;
     private ArrayList<Item> children;
     private boolean groupOpen;
     private String languageTo;
 
     public MyWordsHeader(String name) {
+        this.id = createSyntheticId("header", name);
         this.name = name;
         this.children = new ArrayList<>();
         groupOpen = false;
     }
 
+    /**
+     * Copies the header, so that the copy can be changed while the original is still displayed
+     */
+    public MyWordsHeader(MyWordsHeader other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.children = new ArrayList<>(other.children);
+        this.groupOpen = other.groupOpen;
+        this.languageTo = other.languageTo;
+    }
+
     public String getName() {
         return name;
     }
 
+    /**
+     * Stable id of the header, the same day always gets the same id
+     */
+    public long getId() {
+        return id;
+    }
+
     public void addChild(Item item) {
+        if (item instanceof MyWordsInfoHeader)
+            attachInfoHeader((MyWordsInfoHeader) item);
         children.add(item);
     }
 
-    public Item removeChild(int position) {
-        return children.remove(position);
+    /**
+     * Gives the info header an id that stays the same when MyWords is downloaded again.
+     * Headers that were added locally can make the count of earlier occurrences of the article
+     * repeat an id that is still used, the next free occurrence is taken then.
+     */
+    private void attachInfoHeader(MyWordsInfoHeader infoHeader) {
+        int occurrence = 0;
+        for (Item child : children)
+            if (child instanceof MyWordsInfoHeader && ((MyWordsInfoHeader) child).isSameArticle(infoHeader))
+                occurrence++;
+
+        long id;
+        do {
+            id = createSyntheticId("info", name, infoHeader.getName(), infoHeader.getUrl(), Integer.toString(occurrence++));
+        } while (containsId(id));
+        infoHeader.setId(id);
     }
 
-    public Item getChild(int position) {
-        return children.get(position);
+    private boolean containsId(long id) {
+        for (Item child : children)
+            if (child.getItemId() == id)
+                return true;
+        return false;
     }
 
-    public int getChildrenSize() {
-        return children.size();
+    /**
+     * Creates an id for an entry that has no id on the server. Synthetic ids are always
+     * negative, so that they can never be the same as the (positive) id of a bookmark.
+     */
+    static long createSyntheticId(String... parts) {
+        // 64-bit FNV-1a hash
+        long hash = 0xcbf29ce484222325L;
+        for (String part : parts) {
+            if (part != null) {
+                for (int i = 0; i < part.length(); i++) {
+                    hash ^= part.charAt(i);
+                    hash *= 0x100000001b3L;
+                }
+            }
+            hash ^= 0x1f; // separator
+            hash *= 0x100000001b3L;
+        }
+        return hash | Long.MIN_VALUE;
     }
 
-    public long getItemId(int position) {
-        return getChild(position).getItemId();
+    /**
+     * Whether one of the bookmarks of this day has one of these ids
+     */
+    public boolean containsAny(Set<Long> ids) {
+        for (Item child : children)
+            if (ids.contains(child.getItemId()))
+                return true;
+        return false;
     }
 
-    public View getView(LayoutInflater inflater, View convertView) {
-        final ViewHolder holder;
-        if (convertView == null) {
-            convertView = inflater.inflate(R.layout.mywords_header, null);
-            holder = new ViewHolder();
+    public Item removeChild(int position) {
+        return children.remove(position);
+    }
 
-            holder.header_title = (TextView) convertView.findViewById(R.id.txtHeader);
-            holder.group_status = (ImageView) convertView.findViewById(R.id.ic_action_group_status);
+    /**
+     * Adds a new bookmark at the top of the day, below the info header of its article
+     */
+    public void addBookmark(MyWordsItem item, String title, String url) {
+        MyWordsInfoHeader infoHeader = new MyWordsInfoHeader(title, url);
+        if (children.isEmpty() || !(children.get(0) instanceof MyWordsInfoHeader)
+                || !((MyWordsInfoHeader) children.get(0)).isSameArticle(infoHeader)) {
+            attachInfoHeader(infoHeader);
+            children.add(0, infoHeader);
+        }
+        children.add(1, item);
+    }
 
-            convertView.setTag(holder);
-        } else {
-            holder = (ViewHolder) convertView.getTag();
+    /**
+     * Removes the bookmark with this id, and its info header if no other bookmark of
+     * the article is left. Returns the removed bookmark or null if it is not in this day.
+     */
+    public Item removeBookmark(long id) {
+        for (int position = 0; position < children.size(); position++) {
+            if (children.get(position).getItemId() != id)
+                continue;
+
+            Item removed = children.remove(position);
+            boolean emptyArticle = position == children.size() || children.get(position) instanceof MyWordsInfoHeader;
+            if (emptyArticle && position > 0 && children.get(position - 1) instanceof MyWordsInfoHeader)
+                children.remove(position - 1);
+            return removed;
         }
+        return null;
+    }
 
-        holder.header_title.setText(name);
+    public Item getChild(int position) {
+        return children.get(position);
+    }
 
-        if (groupOpen)
-            holder.group_status.setImageResource(R.drawable.ic_action_close_list_holo_light);
-        else
-            holder.group_status.setImageResource(R.drawable.ic_action_open_list_holo_light);
+    /**
+     * Returns a copy of the children
+     */
+    public Item[] getChildren() {
+        return children.toArray(new Item[children.size()]);
+    }
 
-        return convertView;
+    public int getChildrenSize() {
+        return children.size();
     }
 
-    public View getChildView(int childPosition, LayoutInflater inflater, View convertView) {
-        return children.get(childPosition).getView(inflater, convertView);
+    public long getItemId(int position) {
+        return getChild(position).getItemId();
     }
 
     public void setGroupOpen(boolean groupOpen) {
         this.groupOpen = groupOpen;
     }
 
+    public boolean isGroupOpen() {
+        return groupOpen;
+    }
+
 
     //// loading and writing my words from and to memory, IO interface  ////
 
@@ -92,7 +177,7 @@ public class MyWordsHeader {
         bufferedWriter.newLine();
 
         for (Item r : children) {
-            if (r.getItemId() != 0) {
+            if (r.getItemId() > 0) {
                 bufferedWriter.write(Long.toString(r.getItemId()));
                 bufferedWriter.newLine();
 
@@ -148,7 +233,7 @@ public class MyWordsHeader {
             } else {
                 String title = bufferedReader.readLine();
                 String url = bufferedReader.readLine();
-                children.add(new MyWordsInfoHeader(title, url));
+                addChild(new MyWordsInfoHeader(title, url));
             }
         }
     }
@@ -163,11 +248,4 @@ public class MyWordsHeader {
         }
         return null;
     }
-
-    //// View holder for the list elements so that they can be reused ////
-
-    static class ViewHolder {
-        TextView header_title;
-        ImageView group_status;
-    }
 }
@@ -0,0 +1,53 @@
+package ch.unibe.zeeguulibrary.MyWords;
+
+/**
+ * Zeeguu Application
+ * Created by Pascal on 24/01/15.
+ */
+public class MyWordsInfoHeader implements Item {
+    private long id;
+    private final String name;
+    private final String url;
+
+    public MyWordsInfoHeader(String name, String url) {
+        this.name = name;
+        this.url = url;
+    }
+
+    // Interfaces
+    /**
+     * Synthetic (negative) id, assigned when the info header is added to a MyWordsHeader
+     */
+    @Override
+    public long getItemId() {
+        return id;
+    }
+
+    void setId(long id) {
+        this.id = id;
+    }
+
+    boolean isSameArticle(MyWordsInfoHeader other) {
+        return (name == null ? other.name == null : name.equals(other.name))
+                && (url == null ? other.url == null : url.equals(other.url));
+    }
+
+    @Override
+    public MyWordsItem isTranslation(String languageFrom, String languageTo, String outputLanguage) {
+        return null; //because a MyWordsHeader cannot be a translation of a word
+    }
+
+    @Override
+    public boolean isLanguageCombination(String languageFrom, String languageTo) {
+        return false; //because a MyWordsHeader is never a language combination
+    }
+
+    // Getter und Setter
+    public String getName() {
+        return name;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+}
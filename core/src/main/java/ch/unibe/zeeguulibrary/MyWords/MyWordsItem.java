@@ -0,0 +1,92 @@
+package ch.unibe.zeeguulibrary.MyWords;
+
+/**
+ * Zeeguu Application
+ * Created by Pascal on 22/01/15.
+ */
+public class MyWordsItem implements Item {
+
+    private long id;
+    private String languageFromWord;
+    private String languageFrom;
+    private String languageToWord;
+    private String languageTo;
+    private String context;
+
+
+    public MyWordsItem(long id, String languageFromWord, String languageToWord, String context, String languageFrom, String languageTo) {
+        this.id = id;
+        this.languageFromWord = languageFromWord;
+        this.languageToWord = languageToWord;
+        this.context = context;
+        this.languageFrom = languageFrom;
+        this.languageTo = languageTo;
+    }
+
+
+    public String getLanguageFrom() {
+        return languageFrom;
+    }
+
+    public String getLanguageTo() {
+        return languageTo;
+    }
+
+    public String getContext() {
+        return context;
+    }
+
+    public String getLanguageFromWord() {
+        return languageFromWord;
+    }
+
+    public void setLanguageFromWord(String languageFromWord) {
+        this.languageFromWord = languageFromWord;
+    }
+
+    public String getLanguageToWord() {
+        return languageToWord;
+    }
+
+    public void setLanguageToWord(String languageToWord) {
+        this.languageToWord = languageToWord;
+    }
+
+    public void setLanguageFrom(String languageFrom) {
+        this.languageFrom = languageFrom;
+    }
+
+    public void setLanguageTo(String languageTo) {
+        this.languageTo = languageTo;
+    }
+
+    public void setContext(String context) {
+        this.context = context;
+    }
+
+    @Override
+    public long getItemId() {
+        return id;
+    }
+
+    //// to see if an item is a translation from a word we are searching ////
+
+    public MyWordsItem isTranslation(String languageFrom, String languageTo, String toLanguage) {
+        if(isLanguageCombination(languageFrom, languageTo))
+            if (languageFrom.equals(languageFromWord))
+                return this;
+            else
+                return this;
+
+        return null;
+    }
+
+    @Override
+    public boolean isLanguageCombination(String languageFrom, String languageTo) {
+        if (languageFrom.equals(this.languageFrom) && languageTo.equals(this.languageTo)
+                || languageFrom.equals(this.languageTo) && languageTo.equals(this.languageFrom))
+            return true;
+        return false;
+    }
+}
+
@@ -0,0 +1,129 @@
+package ch.unibe.zeeguulibrary.MyWords;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Version of MyWords that never changes. A change creates a new snapshot with copies of the
+ * changed headers, so a snapshot can be read from any thread without locks.
+ */
+public final class MyWordsSnapshot {
+
+    public static final MyWordsSnapshot EMPTY = new MyWordsSnapshot(0, new ArrayList<MyWordsHeader>());
+
+    private final int version;
+    private final List<MyWordsHeader> headers;
+
+    /**
+     * The headers must not be changed anymore after the snapshot is created
+     */
+    private MyWordsSnapshot(int version, ArrayList<MyWordsHeader> headers) {
+        this.version = version;
+        this.headers = Collections.unmodifiableList(headers);
+    }
+
+    /**
+     * Creates the next version with these headers, the list is copied
+     */
+    public MyWordsSnapshot next(List<MyWordsHeader> headers) {
+        return new MyWordsSnapshot(version + 1, new ArrayList<>(headers));
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public List<MyWordsHeader> getHeaders() {
+        return headers;
+    }
+
+    public boolean isEmpty() {
+        return headers.isEmpty();
+    }
+
+    /**
+     * Returns a copy of the headers that can be changed to create the next version
+     */
+    public ArrayList<MyWordsHeader> edit() {
+        return new ArrayList<>(headers);
+    }
+
+    //// Lookups ////
+
+    public Item findItem(long id) {
+        for (MyWordsHeader header : headers)
+            for (int i = 0; i < header.getChildrenSize(); i++)
+                if (header.getChild(i).getItemId() == id)
+                    return header.getChild(i);
+        return null;
+    }
+
+    public MyWordsItem checkMyWordsForTranslation(String input, String inputLanguage, String outputLanguage) {
+        for (MyWordsHeader myWordsHeader : headers) {
+            MyWordsItem result = myWordsHeader.checkMyWordsForTranslation(input, inputLanguage, outputLanguage);
+            if (result != null)
+                return result;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the words and translations of all words of this language combination
+     */
+    public ArrayList<String> getWordsOfLanguages(String languageFrom, String languageTo) {
+        ArrayList<String> list = new ArrayList<>();
+
+        for (MyWordsHeader h : headers)
+            for (int i = 0; i < h.getChildrenSize(); i++) {
+                Item item = h.getChild(i);
+                if (item.isLanguageCombination(languageFrom, languageTo)) {
+                    MyWordsItem myWordsItem = (MyWordsItem) item;
+
+                    list.add(myWordsItem.getLanguageFromWord());
+                    list.add(myWordsItem.getLanguageToWord());
+                }
+            }
+        return list;
+    }
+
+    //// Changes, on the headers returned by edit ////
+
+    /**
+     * Removes the words from the headers, the headers that change are replaced by changed copies.
+     * Returns the ids of the words that were removed.
+     */
+    public static ArrayList<Long> removeWords(List<MyWordsHeader> headers, Set<Long> ids) {
+        ArrayList<Long> removedIds = new ArrayList<>();
+        for (int headerPosition = headers.size() - 1; headerPosition >= 0; headerPosition--) {
+            if (!headers.get(headerPosition).containsAny(ids))
+                continue;
+
+            MyWordsHeader header = new MyWordsHeader(headers.get(headerPosition));
+            for (Item child : header.getChildren())
+                if (ids.contains(child.getItemId()) && header.removeBookmark(child.getItemId()) != null)
+                    removedIds.add(child.getItemId());
+
+            if (header.getChildrenSize() == 0)
+                headers.remove(headerPosition);
+            else
+                headers.set(headerPosition, header);
+        }
+        return removedIds;
+    }
+
+    /**
+     * Adds a new word at the top of the day, the day is created if it is not the newest one yet
+     */
+    public static void addWord(List<MyWordsHeader> headers, String day, MyWordsItem item, String title, String url) {
+        removeWords(headers, Collections.singleton(item.getItemId())); // the same word can be bookmarked again
+
+        if (headers.isEmpty() || !headers.get(0).getName().equals(day))
+            headers.add(0, new MyWordsHeader(day));
+        else
+            headers.set(0, new MyWordsHeader(headers.get(0)));
+
+        headers.get(0).addBookmark(item, title, url);
+    }
+}
@@ -0,0 +1,107 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ContentCacheTest {
+
+    private static final String CONTENT = "<p>Der Hund schläft im Haus.</p>";
+
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = File.createTempFile("content_cache", null);
+        directory.delete();
+    }
+
+    @After
+    public void deleteDirectory() {
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        directory.delete();
+    }
+
+    @Test
+    public void getReturnsThePutEntry() throws IOException {
+        ContentCache cache = new ContentCache(directory, 100000);
+        cache.put("http://www.example.com/a", CONTENT, "http://www.example.com/a.jpg");
+
+        ContentCache.Entry entry = cache.get("http://www.example.com/a");
+        assertEquals(CONTENT, entry.getContent());
+        assertEquals("http://www.example.com/a.jpg", entry.getImage());
+        assertNull(cache.get("http://www.example.com/b"));
+
+        // Another instance reads the same files, e.g. after the app restarted
+        ContentCache reopened = new ContentCache(directory, 100000);
+        assertEquals(CONTENT, reopened.get("http://www.example.com/a").getContent());
+        assertEquals(cache.getSize(), reopened.getSize());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsRemovedFirst() throws IOException {
+        ContentCache cache = new ContentCache(directory, 100000);
+        cache.put("a", CONTENT, "");
+        long entrySize = cache.getSize();
+        cache = new ContentCache(directory, 3 * entrySize);
+        cache.put("b", CONTENT, "");
+        cache.put("c", CONTENT, "");
+
+        // All in the same millisecond, only the order of the accesses counts
+        assertTrue(cache.get("a") != null);
+        cache.put("d", CONTENT, "");
+
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertTrue(cache.contains("d"));
+        assertEquals(3 * entrySize, cache.getSize());
+    }
+
+    @Test
+    public void corruptEntryIsAMissAndDeleted() throws IOException {
+        ContentCache cache = new ContentCache(directory, 100000);
+        cache.put("http://www.example.com/a", CONTENT, "");
+        File file = directory.listFiles()[0];
+
+        // A length far beyond the file must not be allocated
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.seek(4);
+        randomAccessFile.writeInt(Integer.MAX_VALUE - 8);
+        randomAccessFile.close();
+
+        assertNull(cache.get("http://www.example.com/a"));
+        assertFalse(file.exists());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void partlyWrittenEntryIsAMissAndDeleted() throws IOException {
+        ContentCache cache = new ContentCache(directory, 100000);
+        cache.put("http://www.example.com/a", CONTENT, "");
+        File file = directory.listFiles()[0];
+
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+        out.writeInt(1);
+        out.writeInt(100);
+        out.close();
+
+        assertNull(cache.get("http://www.example.com/a"));
+        assertFalse(file.exists());
+        assertEquals(0, cache.getSize());
+    }
+}
@@ -0,0 +1,128 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ContextSearchIndexTest {
+
+    private File file;
+    private HashMap<Long, String> contexts;
+
+    @Before
+    public void createContexts() throws IOException {
+        file = File.createTempFile("context_index", null);
+        file.delete();
+
+        contexts = new HashMap<>();
+        contexts.put(1L, "Der Hund läuft über die Straße.");
+        contexts.put(2L, "Die Straße ist nass.");
+        // Terms of two and three bytes in modified UTF-8, which move the offsets of the postings
+        contexts.put(300L, "Größe und Maße, 日本語");
+        // Ids that need several bytes as varint, also between the ids of one posting list
+        contexts.put(1L << 40, "Der Hund schläft.");
+        contexts.put(Long.MAX_VALUE / 3, "Ein Hund und eine Katze.");
+        // More words with the same prefix than a query used to read from the file
+        StringBuilder manyWords = new StringBuilder();
+        for (int i = 0; i < 300; i++)
+            manyWords.append("wort").append(i).append(' ');
+        contexts.put(5L, manyWords.toString());
+        contexts.put(6L, "wort299");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void searchFindsAllWordsAndThePrefixOfTheLast() throws IOException {
+        ContextSearchIndex index = new ContextSearchIndex(file);
+        index.update(contexts);
+
+        assertSearch(index);
+    }
+
+    @Test
+    public void compactedIndexGivesTheSameResults() throws IOException {
+        ContextSearchIndex index = new ContextSearchIndex(file);
+        index.update(contexts);
+        index.compact();
+
+        assertSearch(index);
+    }
+
+    @Test
+    public void fileIsReadAgain() throws IOException {
+        ContextSearchIndex index = new ContextSearchIndex(file);
+        index.update(contexts);
+        index.compact();
+
+        ContextSearchIndex loaded = new ContextSearchIndex(file);
+        assertEquals(contexts.size(), loaded.size());
+        assertSearch(loaded);
+    }
+
+    @Test
+    public void changesAfterCompactingAreFound() throws IOException {
+        ContextSearchIndex index = new ContextSearchIndex(file);
+        index.update(contexts);
+        index.compact();
+
+        contexts.remove(2L);
+        contexts.put(1L, "Die Katze schläft.");
+        contexts.put(7L, "Eine nasse Straße.");
+        index.update(contexts);
+
+        assertEquals(Arrays.asList(7L), index.search("straße", 10));
+        assertEquals(Arrays.asList(Long.MAX_VALUE / 3, 1L), index.search("katze", 10));
+        assertEquals(Arrays.asList(1L << 40), index.search("der hund", 10));
+
+        // The same after the changes were merged into the file
+        index.compact();
+        ContextSearchIndex loaded = new ContextSearchIndex(file);
+        assertEquals(Arrays.asList(7L), loaded.search("straße", 10));
+        assertEquals(Arrays.asList(Long.MAX_VALUE / 3, 1L), loaded.search("katze", 10));
+        assertEquals(Arrays.asList(1L << 40), loaded.search("der hund", 10));
+    }
+
+    @Test
+    public void largeUpdateIsWrittenInParts() throws IOException {
+        int size = ContextSearchIndex.MAX_PENDING_DOCUMENTS * 3 + 10;
+        HashMap<Long, String> many = new HashMap<>();
+        for (long id = 1; id <= size; id++)
+            many.put(id, "Kontext Nummer " + id + " mit dem Wort" + id % 50);
+
+        ContextSearchIndex index = new ContextSearchIndex(file);
+        index.update(many);
+
+        // Only the contexts after the last merge are still in memory
+        assertTrue(file.length() > 0);
+        assertTrue(index.pendingDocuments() <= ContextSearchIndex.MAX_PENDING_DOCUMENTS);
+        assertEquals(size, index.size());
+        assertEquals(size, new ContextSearchIndex(file).size() + index.pendingDocuments());
+        assertEquals(Arrays.asList((long) size), index.search("nummer " + size, 10));
+        assertEquals(Arrays.asList(1L), index.search("nummer 1 wort1", 10));
+    }
+
+    private void assertSearch(ContextSearchIndex index) throws IOException {
+        assertEquals(Arrays.asList(1L << 40, 1L), index.search("der hu", 10));
+        assertEquals(Arrays.asList(2L, 1L), index.search("Straße", 10));
+        assertEquals(Arrays.asList(300L), index.search("Große maß", 10));
+        assertEquals(Arrays.asList(300L), index.search("日本語", 10));
+        assertEquals(Arrays.asList(Long.MAX_VALUE / 3, 1L << 40, 1L), index.search("hund", 10));
+        assertEquals(Arrays.asList(Long.MAX_VALUE / 3, 1L << 40), index.search("hund", 2));
+        assertEquals(new ArrayList<Long>(), index.search("katze hund schläft", 10));
+        // The last of the words with the prefix is found as well
+        assertEquals(Arrays.asList(6L, 5L), index.search("wort", 10));
+    }
+}
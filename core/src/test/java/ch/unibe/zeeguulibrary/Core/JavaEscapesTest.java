@@ -0,0 +1,215 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Compares JavaEscapes with the implementation it replaced, on random inputs that consist
+ * mostly of escape sequences, including broken ones
+ */
+public class JavaEscapesTest {
+
+    private static final int RANDOM_INPUTS = 200000;
+    private static final String ALPHABET = "\\\\\\\\\\01234567789abcdefABCDEFuuunrtbf\"'xX+- ä١";
+
+    @Test
+    public void unescapesTheStandardEscapes() {
+        assertEquals("a\nb\tc\\d\"e'f\rg\bh\fi", JavaEscapes.unescape("a\\nb\\tc\\\\d\\\"e\\'f\\rg\\bh\\fi"));
+        assertEquals("ä€", JavaEscapes.unescape("\\u00e4\\u20AC"));
+        assertEquals("A\u0007ÿ8", JavaEscapes.unescape("\\101\\7\\3778"));
+    }
+
+    @Test
+    public void returnsStringsWithoutEscapesThemselves() {
+        String string = "no escapes here";
+        assertSame(string, JavaEscapes.unescape(string));
+    }
+
+    @Test
+    public void sameAsTheOldImplementationForStrings() {
+        Random random = new Random(47);
+        for (int i = 0; i < RANDOM_INPUTS; i++) {
+            String input = createInput(random);
+            assertEquals(input, reference(input), unescapeString(input));
+        }
+    }
+
+    @Test
+    public void sameAsTheOldImplementationForReadersWithSmallBuffers() throws IOException {
+        Random random = new Random(4747);
+        for (int i = 0; i < RANDOM_INPUTS; i++) {
+            String input = createInput(random);
+            // Buffers of one to seven characters split the escape sequences at every position
+            char[] buffer = new char[1 + random.nextInt(7)];
+            assertEquals(input + " (buffer " + buffer.length + ")", reference(input), unescapeReader(input, buffer));
+        }
+    }
+
+    @Test
+    public void readerThatReturnsLessThanTheBuffer() throws IOException {
+        Random random = new Random(474747);
+        for (int i = 0; i < RANDOM_INPUTS / 10; i++) {
+            String input = createInput(random);
+            StringBuilder out = new StringBuilder();
+            String result;
+            try {
+                JavaEscapes.unescape(new TrickleReader(input, random), out, new char[8]);
+                result = out.toString();
+            } catch (RuntimeException e) {
+                result = e.getClass().getName();
+            }
+            assertEquals(input, reference(input), result);
+        }
+    }
+
+    @Test
+    public void builderCanBeReused() {
+        StringBuilder out = new StringBuilder();
+        JavaEscapes.unescape("a\\n", out);
+        JavaEscapes.unescape("\\tb", out);
+        assertEquals("a\n\tb", out.toString());
+    }
+
+    private static String createInput(Random random) {
+        int length = random.nextInt(12);
+        StringBuilder input = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            input.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        return input.toString();
+    }
+
+    private static String unescapeString(String input) {
+        try {
+            return JavaEscapes.unescape(input);
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    private static String unescapeReader(String input, char[] buffer) throws IOException {
+        StringBuilder out = new StringBuilder();
+        try {
+            JavaEscapes.unescape(new StringReader(input), out, buffer);
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+        return out.toString();
+    }
+
+    /**
+     * Reader that returns a random number of characters per read
+     */
+    private static class TrickleReader extends Reader {
+        private final String text;
+        private final Random random;
+        private int position;
+
+        TrickleReader(String text, Random random) {
+            this.text = text;
+            this.random = random;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == text.length())
+                return -1;
+            int count = Math.min(Math.min(length, 1 + random.nextInt(3)), text.length() - position);
+            text.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * The implementation before JavaEscapes, returns the name of the exception it throws
+     * (source: https://gist.github.com/uklimaschewski/6741769)
+     */
+    private static String reference(String string) {
+        try {
+            return referenceUnescape(string);
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    private static String referenceUnescape(String string) {
+        StringBuilder sb = new StringBuilder(string.length());
+
+        for (int i = 0; i < string.length(); i++) {
+            char ch = string.charAt(i);
+            if (ch == '\\') {
+                char nextChar = (i == string.length() - 1) ? '\\' : string
+                        .charAt(i + 1);
+                // Octal escape?
+                if (nextChar >= '0' && nextChar <= '7') {
+                    String code = "" + nextChar;
+                    i++;
+                    if ((i < string.length() - 1) && string.charAt(i + 1) >= '0'
+                            && string.charAt(i + 1) <= '7') {
+                        code += string.charAt(i + 1);
+                        i++;
+                        if ((i < string.length() - 1) && string.charAt(i + 1) >= '0'
+                                && string.charAt(i + 1) <= '7') {
+                            code += string.charAt(i + 1);
+                            i++;
+                        }
+                    }
+                    sb.append((char) Integer.parseInt(code, 8));
+                    continue;
+                }
+                switch (nextChar) {
+                    case '\\':
+                        ch = '\\';
+                        break;
+                    case 'b':
+                        ch = '\b';
+                        break;
+                    case 'f':
+                        ch = '\f';
+                        break;
+                    case 'n':
+                        ch = '\n';
+                        break;
+                    case 'r':
+                        ch = '\r';
+                        break;
+                    case 't':
+                        ch = '\t';
+                        break;
+                    case '\"':
+                        ch = '\"';
+                        break;
+                    case '\'':
+                        ch = '\'';
+                        break;
+                    // Hex Unicode: u????
+                    case 'u':
+                        if (i >= string.length() - 5) {
+                            ch = 'u';
+                            break;
+                        }
+                        int code = Integer.parseInt(
+                                "" + string.charAt(i + 2) + string.charAt(i + 3)
+                                        + string.charAt(i + 4) + string.charAt(i + 5), 16);
+                        sb.append(Character.toChars(code));
+                        i += 5;
+                        continue;
+                }
+                i++;
+            }
+            sb.append(ch);
+        }
+        return sb.toString();
+    }
+}
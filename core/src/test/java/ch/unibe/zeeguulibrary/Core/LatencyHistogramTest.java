@@ -0,0 +1,91 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReturnsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getPercentile(0.5));
+        assertEquals(0, histogram.getPercentile(0.99));
+    }
+
+    @Test
+    public void percentilesOfOneToHundred() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int duration = 1; duration <= 100; duration++)
+            histogram.record(duration);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50, histogram.getMean());
+        assertWithinTenPercent(50, histogram.getPercentile(0.5));
+        assertWithinTenPercent(95, histogram.getPercentile(0.95));
+        assertWithinTenPercent(99, histogram.getPercentile(0.99));
+        assertEquals(100, histogram.getPercentile(1));
+    }
+
+    @Test
+    public void percentilesAreWithinTenPercentOfTheExactOnes() {
+        Random random = new Random(42);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] durations = new long[10000];
+        for (int i = 0; i < durations.length; i++) {
+            // Log-normal like most latencies, a few are very slow
+            durations[i] = (long) Math.exp(5 + random.nextGaussian());
+            histogram.record(durations[i]);
+        }
+        Arrays.sort(durations);
+
+        for (double percentile : new double[]{0.5, 0.9, 0.95, 0.99}) {
+            long exact = durations[(int) Math.ceil(percentile * durations.length) - 1];
+            assertWithinTenPercent(exact, histogram.getPercentile(percentile));
+        }
+        assertEquals(durations[durations.length - 1], histogram.getMax());
+    }
+
+    @Test
+    public void percentileNeverExceedsTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1234);
+
+        assertEquals(1234, histogram.getPercentile(0.5));
+        assertEquals(1234, histogram.getPercentile(0.99));
+    }
+
+    @Test
+    public void negativeAndVeryLongDurations() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(60 * 60 * 1000);
+
+        // Negative durations count as 0, the first bucket takes everything up to 1 ms
+        assertTrue(histogram.getPercentile(0.5) <= 1);
+        assertEquals(60 * 60 * 1000, histogram.getPercentile(1));
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.clear();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(0.5));
+    }
+
+    private static void assertWithinTenPercent(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual, Math.abs(actual - expected) <= Math.max(1, expected / 10));
+    }
+}
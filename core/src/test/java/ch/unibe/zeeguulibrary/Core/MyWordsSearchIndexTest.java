@@ -0,0 +1,139 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+
+import ch.unibe.zeeguulibrary.MyWords.MyWordsHeader;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsItem;
+import ch.unibe.zeeguulibrary.Testing.CorpusGenerator;
+
+import static org.junit.Assert.assertEquals;
+
+public class MyWordsSearchIndexTest {
+
+    @Test
+    public void searchIgnoresCaseAndAccents() {
+        MyWordsSearchIndex index = new MyWordsSearchIndex();
+        index.add(1, "Café", "coffee", "Wir trinken Kaffee im Café.");
+        index.add(2, "Tür", "door", "Die Tür ist offen.");
+
+        assertSearch(index, "cafe", 1);
+        assertSearch(index, "CAFÉ", 1);
+        assertSearch(index, "tur", 2);
+        assertSearch(index, "tür", 2);
+    }
+
+    @Test
+    public void searchFindsEntriesWithAllPrefixes() {
+        MyWordsSearchIndex index = new MyWordsSearchIndex();
+        index.add(1, "Haus", "house", "Das Haus ist groß.");
+        index.add(2, "Auto", "car", "Das Auto fährt.");
+        index.add(3, "Hund", "dog", "Der Hund bellt.");
+
+        assertSearch(index, "da", 1, 2);
+        assertSearch(index, "das h", 1);
+        assertSearch(index, "h", 1, 3);
+        assertSearch(index, "haus auto");
+        assertSearch(index, "katze");
+        // Only separators, no word to search for
+        assertSearch(index, " . ");
+    }
+
+    @Test
+    public void removedEntriesAreNotFound() {
+        MyWordsSearchIndex index = new MyWordsSearchIndex();
+        index.add(1, "Haus", "house", "Das Haus ist groß.");
+        index.add(2, "Hausaufgabe", "homework", "");
+        index.add(3, "Hund", "dog", "");
+
+        index.remove(2);
+        assertSearch(index, "haus", 1);
+
+        index.retainAll(new HashSet<>(Collections.singletonList(3L)));
+        assertEquals(1, index.size());
+        assertSearch(index, "haus");
+        assertSearch(index, "h", 3);
+
+        // Changed texts replace the old ones
+        index.add(3, "Katze", "cat", "");
+        assertSearch(index, "hund");
+        assertSearch(index, "katze", 3);
+    }
+
+    @Test
+    public void removeDeletesTheUnusedNodes() {
+        MyWordsSearchIndex index = new MyWordsSearchIndex();
+        index.add(1, "Haus", "house", "");
+        int nodes = index.nodeCount();
+
+        index.add(2, "Hausaufgabe", "homework", "Die Hausaufgabe ist schwer.");
+        index.add(3, "Ball", "ball", "");
+        index.remove(2);
+        index.retainAll(new HashSet<>(Collections.singletonList(1L)));
+        assertEquals(nodes, index.nodeCount());
+
+        index.remove(1);
+        assertEquals(1, index.nodeCount());
+        assertSearch(index, "h");
+
+        // The index still works after the nodes were removed
+        index.add(4, "Hand", "hand", "");
+        assertSearch(index, "ha", 4);
+    }
+
+    @Test
+    public void searchFindsTheSameEntriesAsAScan() throws JSONException {
+        MyWordsSearchIndex index = new MyWordsSearchIndex();
+        ArrayList<MyWordsItem> items = new ArrayList<>();
+        for (MyWordsHeader header : new CorpusGenerator(42).createMyWords(2000, "de", "en")) {
+            for (int i = 0; i < header.getChildrenSize(); i++) {
+                if (header.getChild(i) instanceof MyWordsItem) {
+                    MyWordsItem item = (MyWordsItem) header.getChild(i);
+                    index.add(item.getItemId(), item.getLanguageFromWord(), item.getLanguageToWord(), item.getContext());
+                    items.add(item);
+                }
+            }
+        }
+
+        CorpusGenerator corpus = new CorpusGenerator(42);
+        String[] queries = {corpus.getWord("de", 3).substring(0, 2), corpus.getWord("de", 100),
+                corpus.getWord("en", 10) + " " + corpus.getWord("de", 20).substring(0, 1)};
+        for (String query : queries) {
+            ArrayList<String> prefixes = new ArrayList<>();
+            MyWordsSearchIndex.tokenize(query, prefixes);
+
+            HashSet<Long> expected = new HashSet<>();
+            for (MyWordsItem item : items) {
+                HashSet<String> tokens = new HashSet<>();
+                MyWordsSearchIndex.tokenize(item.getLanguageFromWord() + " " + item.getLanguageToWord()
+                        + " " + item.getContext(), tokens);
+                if (containsAll(tokens, prefixes))
+                    expected.add(item.getItemId());
+            }
+
+            assertEquals(expected, index.search(query));
+        }
+    }
+
+    private static boolean containsAll(HashSet<String> tokens, ArrayList<String> prefixes) {
+        for (String prefix : prefixes) {
+            boolean found = false;
+            for (String token : tokens)
+                found |= token.startsWith(prefix);
+            if (!found)
+                return false;
+        }
+        return true;
+    }
+
+    private static void assertSearch(MyWordsSearchIndex index, String query, long... ids) {
+        HashSet<Long> expected = new HashSet<>();
+        for (long id : ids)
+            expected.add(id);
+        assertEquals(expected, index.search(query));
+    }
+}
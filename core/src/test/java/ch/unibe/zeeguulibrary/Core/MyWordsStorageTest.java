@@ -0,0 +1,162 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import ch.unibe.zeeguulibrary.MyWords.Item;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsHeader;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsInfoHeader;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsItem;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsSnapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MyWordsStorageTest {
+
+    @Test
+    public void readReturnsWhatWasWritten() throws IOException {
+        List<MyWordsHeader> myWords = createMyWords();
+        List<MyWordsHeader> read = writeAndRead(myWords);
+
+        assertEquals(myWords.size(), read.size());
+        for (int i = 0; i < myWords.size(); i++)
+            assertSameHeader(myWords.get(i), read.get(i));
+    }
+
+    @Test
+    public void emptyMyWordsStaysEmpty() throws IOException {
+        assertTrue(writeAndRead(new ArrayList<MyWordsHeader>()).isEmpty());
+    }
+
+    @Test
+    public void readChangesRepeatsTheChanges() throws IOException {
+        String tomorrow = "Tuesday, 01 December 2015";
+        MyWordsItem added = new MyWordsItem(5, "Auto", "car", "Das Auto fährt.", "de", "en");
+        MyWordsItem addedAgain = new MyWordsItem(4, "Baum", "tree", "Ein Baum.", "de", "en");
+
+        StringWriter log = new StringWriter();
+        BufferedWriter writer = new BufferedWriter(log);
+        MyWordsStorage.writeAddition(writer, tomorrow, added, "Verkehr", "http://www.example.com/c");
+        MyWordsStorage.writeDeletion(writer, Arrays.asList(2L, 1L));
+        MyWordsStorage.writeAddition(writer, tomorrow, addedAgain, "Nachrichten", "http://www.example.com/a");
+        writer.close();
+
+        ArrayList<MyWordsHeader> expected = createMyWords();
+        MyWordsSnapshot.addWord(expected, tomorrow, added, "Verkehr", "http://www.example.com/c");
+        MyWordsSnapshot.removeWords(expected, new HashSet<>(Arrays.asList(2L, 1L)));
+        MyWordsSnapshot.addWord(expected, tomorrow, addedAgain, "Nachrichten", "http://www.example.com/a");
+
+        ArrayList<MyWordsHeader> myWords = createMyWords();
+        assertEquals(3, MyWordsStorage.readChanges(new BufferedReader(new StringReader(log.toString())), myWords));
+
+        assertEquals(expected.size(), myWords.size());
+        for (int i = 0; i < expected.size(); i++)
+            assertSameHeader(expected.get(i), myWords.get(i));
+    }
+
+    @Test
+    public void readChangesIgnoresAnIncompleteChange() throws IOException {
+        StringWriter log = new StringWriter();
+        BufferedWriter writer = new BufferedWriter(log);
+        MyWordsStorage.writeDeletion(writer, Collections.singletonList(1L));
+        MyWordsStorage.writeAddition(writer, "Tuesday, 01 December 2015",
+                new MyWordsItem(5, "Auto", "car", "Das Auto fährt.", "de", "en"), "Verkehr", "http://www.example.com/c");
+        writer.close();
+
+        // The app was killed while the last line was written
+        String cut = log.toString().substring(0, log.toString().length() - 3);
+        ArrayList<MyWordsHeader> myWords = createMyWords();
+
+        assertEquals(1, MyWordsStorage.readChanges(new BufferedReader(new StringReader(cut)), myWords));
+        assertEquals(2, myWords.size());
+        assertEquals(3, myWords.get(0).getItemId(1));
+    }
+
+    @Test
+    public void readChangesContinuesAfterAnIncompleteChange() throws IOException {
+        MyWordsItem added = new MyWordsItem(5, "Auto", "car", "Das Auto fährt.", "de", "en");
+        StringWriter log = new StringWriter();
+        BufferedWriter writer = new BufferedWriter(log);
+        MyWordsStorage.writeAddition(writer, "Tuesday, 01 December 2015", added, "Verkehr", "http://www.example.com/c");
+        writer.close();
+
+        // The app was killed in the middle of the first addition, the next run appended a deletion
+        String torn = log.toString().substring(0, log.toString().indexOf("Das Auto"));
+        log = new StringWriter();
+        writer = new BufferedWriter(log);
+        MyWordsStorage.writeDeletion(writer, Collections.singletonList(3L));
+        writer.close();
+        ArrayList<MyWordsHeader> myWords = createMyWords();
+
+        assertEquals(1, MyWordsStorage.readChanges(new BufferedReader(new StringReader(torn + log)), myWords));
+        assertEquals(2, myWords.size());
+        assertEquals(4, myWords.get(0).getChildrenSize());
+        assertEquals(2, myWords.get(0).getItemId(1));
+    }
+
+    private static ArrayList<MyWordsHeader> createMyWords() {
+        ArrayList<MyWordsHeader> myWords = new ArrayList<>();
+
+        MyWordsHeader today = new MyWordsHeader("Monday, 30 November 2015");
+        today.addChild(new MyWordsInfoHeader("Nachrichten", "http://www.example.com/a"));
+        today.addChild(new MyWordsItem(3, "Haus", "house", "Das Haus ist groß.", "de", "en"));
+        today.addChild(new MyWordsItem(2, "Straße", "street", "", "de", "en"));
+        today.addChild(new MyWordsInfoHeader("Sport", "http://www.example.com/b"));
+        today.addChild(new MyWordsItem(1, "Ball", "ball", "Der Ball rollt.", "de", "en"));
+        myWords.add(today);
+
+        MyWordsHeader yesterday = new MyWordsHeader("Sunday, 29 November 2015");
+        yesterday.addChild(new MyWordsInfoHeader("Nachrichten", "http://www.example.com/a"));
+        yesterday.addChild(new MyWordsItem(4, "Baum", "tree", "Ein Baum.", "de", "en"));
+        myWords.add(yesterday);
+        return myWords;
+    }
+
+    private static List<MyWordsHeader> writeAndRead(List<MyWordsHeader> myWords) throws IOException {
+        StringWriter data = new StringWriter();
+        BufferedWriter writer = new BufferedWriter(data);
+        MyWordsStorage.write(writer, myWords);
+        writer.close();
+
+        return MyWordsStorage.read(new BufferedReader(new StringReader(data.toString())));
+    }
+
+    static void assertSameHeader(MyWordsHeader expected, MyWordsHeader actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getChildrenSize(), actual.getChildrenSize());
+
+        for (int i = 0; i < expected.getChildrenSize(); i++) {
+            Item expectedChild = expected.getChild(i);
+            Item actualChild = actual.getChild(i);
+            // Also the synthetic ids of the info headers stay the same
+            assertEquals(expectedChild.getItemId(), actualChild.getItemId());
+
+            if (expectedChild instanceof MyWordsItem) {
+                MyWordsItem expectedItem = (MyWordsItem) expectedChild;
+                MyWordsItem actualItem = (MyWordsItem) actualChild;
+                assertEquals(expectedItem.getLanguageFromWord(), actualItem.getLanguageFromWord());
+                assertEquals(expectedItem.getLanguageToWord(), actualItem.getLanguageToWord());
+                assertEquals(expectedItem.getContext(), actualItem.getContext());
+                assertEquals(expectedItem.getLanguageFrom(), actualItem.getLanguageFrom());
+                assertEquals(expectedItem.getLanguageTo(), actualItem.getLanguageTo());
+            } else {
+                MyWordsInfoHeader expectedInfo = (MyWordsInfoHeader) expectedChild;
+                MyWordsInfoHeader actualInfo = (MyWordsInfoHeader) actualChild;
+                assertEquals(expectedInfo.getName(), actualInfo.getName());
+                assertEquals(expectedInfo.getUrl(), actualInfo.getUrl());
+            }
+        }
+    }
+}
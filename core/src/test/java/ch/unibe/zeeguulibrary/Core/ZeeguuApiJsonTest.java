@@ -0,0 +1,80 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import ch.unibe.zeeguulibrary.MyWords.MyWordsHeader;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsInfoHeader;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsItem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ZeeguuApiJsonTest {
+
+    private static final String BOOKMARKS_BY_DAY = "["
+            + "{\"date\": \"Monday, 30 November 2015\", \"bookmarks\": ["
+            + "  {\"id\": 3, \"from\": \"Haus\", \"from_lang\": \"de\", \"to\": [\"house\", \"home\"], \"to_lang\": \"en\","
+            + "   \"title\": \"Nachrichten\", \"url\": \"http://www.example.com/a\", \"context\": \"Das Haus.\"},"
+            + "  {\"id\": 2, \"from\": \"Dach\", \"from_lang\": \"de\", \"to\": [\"roof\"], \"to_lang\": \"en\","
+            + "   \"title\": \"Nachrichten\", \"url\": \"http://www.example.com/a\", \"context\": \"Das Dach.\"},"
+            + "  {\"id\": 1, \"from\": \"Ball\", \"from_lang\": \"de\", \"to\": [\"ball\"], \"to_lang\": \"en\","
+            + "   \"title\": \"Sport\", \"url\": \"http://www.example.com/b\", \"context\": \"Der Ball.\"}]},"
+            + "{\"date\": \"Sunday, 29 November 2015\", \"bookmarks\": ["
+            + "  {\"id\": 4, \"from\": \"Baum\", \"from_lang\": \"de\", \"to\": [\"tree\"], \"to_lang\": \"en\","
+            + "   \"title\": \"Nachrichten\", \"url\": \"http://www.example.com/a\", \"context\": \"Ein Baum.\"}]}"
+            + "]";
+
+    @Test
+    public void parseMyWordsGroupsTheBookmarksByArticle() throws JSONException {
+        ArrayList<MyWordsHeader> myWords = ZeeguuApiJson.parseMyWords(new JSONArray(BOOKMARKS_BY_DAY));
+
+        assertEquals(2, myWords.size());
+        MyWordsHeader today = myWords.get(0);
+        assertEquals("Monday, 30 November 2015", today.getName());
+        // Info header, two words, info header, one word
+        assertEquals(5, today.getChildrenSize());
+        assertTrue(today.getChild(0) instanceof MyWordsInfoHeader);
+        assertEquals("Nachrichten", ((MyWordsInfoHeader) today.getChild(0)).getName());
+        assertEquals("http://www.example.com/a", ((MyWordsInfoHeader) today.getChild(0)).getUrl());
+        assertEquals(3, today.getChild(1).getItemId());
+        assertEquals(2, today.getChild(2).getItemId());
+        assertTrue(today.getChild(3) instanceof MyWordsInfoHeader);
+        assertEquals(1, today.getChild(4).getItemId());
+
+        assertEquals(2, myWords.get(1).getChildrenSize());
+    }
+
+    @Test
+    public void parseMyWordsReadsTheWords() throws JSONException {
+        MyWordsItem item = (MyWordsItem) ZeeguuApiJson.parseMyWords(new JSONArray(BOOKMARKS_BY_DAY)).get(0).getChild(1);
+
+        assertEquals("Haus", item.getLanguageFromWord());
+        // Only the first translation is used
+        assertEquals("house", item.getLanguageToWord());
+        assertEquals("Das Haus.", item.getContext());
+        assertEquals("de", item.getLanguageFrom());
+        assertEquals("en", item.getLanguageTo());
+    }
+
+    @Test
+    public void parseMyWordsGivesStableIdsToTheHeaders() throws JSONException {
+        ArrayList<MyWordsHeader> first = ZeeguuApiJson.parseMyWords(new JSONArray(BOOKMARKS_BY_DAY));
+        ArrayList<MyWordsHeader> second = ZeeguuApiJson.parseMyWords(new JSONArray(BOOKMARKS_BY_DAY));
+
+        assertEquals(first.get(0).getId(), second.get(0).getId());
+        assertEquals(first.get(0).getItemId(0), second.get(0).getItemId(0));
+        assertTrue(first.get(0).getItemId(0) < 0);
+        // The same article on another day is another row
+        assertNotEquals(first.get(0).getItemId(0), first.get(1).getItemId(0));
+    }
+
+    @Test
+    public void parseMyWordsOfAnEmptyHistory() throws JSONException {
+        assertTrue(ZeeguuApiJson.parseMyWords(new JSONArray("[]")).isEmpty());
+    }
+}
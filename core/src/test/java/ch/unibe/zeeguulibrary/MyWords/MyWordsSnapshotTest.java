@@ -0,0 +1,165 @@
+package ch.unibe.zeeguulibrary.MyWords;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MyWordsSnapshotTest {
+
+    private static final String TODAY = "Monday, 30 November 2015";
+    private static final String YESTERDAY = "Sunday, 29 November 2015";
+
+    private MyWordsSnapshot snapshot;
+
+    @Before
+    public void createMyWords() {
+        MyWordsHeader today = new MyWordsHeader(TODAY);
+        today.addChild(new MyWordsInfoHeader("A", "http://www.example.com/a"));
+        today.addChild(createItem(5));
+        today.addChild(createItem(4));
+        today.addChild(new MyWordsInfoHeader("B", "http://www.example.com/b"));
+        today.addChild(createItem(3));
+
+        MyWordsHeader yesterday = new MyWordsHeader(YESTERDAY);
+        yesterday.addChild(new MyWordsInfoHeader("A", "http://www.example.com/a"));
+        yesterday.addChild(createItem(2));
+        yesterday.addChild(createItem(1));
+
+        snapshot = MyWordsSnapshot.EMPTY.next(Arrays.asList(today, yesterday));
+    }
+
+    @Test
+    public void removeWordsKeepsTheOtherWordsOfTheArticle() {
+        ArrayList<MyWordsHeader> headers = snapshot.edit();
+        ArrayList<Long> removed = MyWordsSnapshot.removeWords(headers, Collections.singleton(4L));
+
+        assertEquals(Collections.singletonList(4L), removed);
+        assertIds(headers.get(0), snapshot.getHeaders().get(0).getItemId(0), 5, snapshot.getHeaders().get(0).getItemId(3), 3);
+    }
+
+    @Test
+    public void removeWordsRemovesEmptyArticlesAndDays() {
+        ArrayList<MyWordsHeader> headers = snapshot.edit();
+        ArrayList<Long> removed = MyWordsSnapshot.removeWords(headers, new HashSet<>(Arrays.asList(3L, 2L, 1L)));
+
+        assertEquals(3, removed.size());
+        assertEquals(1, headers.size());
+        assertIds(headers.get(0), snapshot.getHeaders().get(0).getItemId(0), 5, 4);
+    }
+
+    @Test
+    public void removeWordsDoesNotChangeTheSnapshot() {
+        MyWordsHeader today = snapshot.getHeaders().get(0);
+        ArrayList<MyWordsHeader> headers = snapshot.edit();
+        MyWordsSnapshot.removeWords(headers, Collections.singleton(5L));
+
+        assertEquals(5, today.getChildrenSize());
+        assertEquals(5, snapshot.findItem(5).getItemId());
+        // Only the changed day is copied
+        assertNotSame(today, headers.get(0));
+        assertSame(snapshot.getHeaders().get(1), headers.get(1));
+    }
+
+    @Test
+    public void removeWordsIgnoresUnknownIds() {
+        ArrayList<MyWordsHeader> headers = snapshot.edit();
+
+        assertTrue(MyWordsSnapshot.removeWords(headers, Collections.singleton(42L)).isEmpty());
+        assertSame(snapshot.getHeaders().get(0), headers.get(0));
+    }
+
+    @Test
+    public void addWordUnderTheArticleOfTheNewestWord() {
+        ArrayList<MyWordsHeader> headers = snapshot.edit();
+        MyWordsSnapshot.addWord(headers, TODAY, createItem(6), "A", "http://www.example.com/a");
+
+        assertEquals(2, headers.size());
+        assertIds(headers.get(0), snapshot.getHeaders().get(0).getItemId(0), 6, 5, 4,
+                snapshot.getHeaders().get(0).getItemId(3), 3);
+        assertEquals(5, snapshot.getHeaders().get(0).getChildrenSize());
+    }
+
+    @Test
+    public void addWordOfAnotherArticle() {
+        ArrayList<MyWordsHeader> headers = snapshot.edit();
+        MyWordsSnapshot.addWord(headers, TODAY, createItem(6), "C", "http://www.example.com/c");
+
+        MyWordsHeader today = headers.get(0);
+        assertEquals(7, today.getChildrenSize());
+        assertEquals("C", ((MyWordsInfoHeader) today.getChild(0)).getName());
+        assertEquals(6, today.getItemId(1));
+        assertEquals(snapshot.getHeaders().get(0).getItemId(0), today.getItemId(2));
+    }
+
+    @Test
+    public void addWordCreatesANewDay() {
+        ArrayList<MyWordsHeader> headers = snapshot.edit();
+        MyWordsSnapshot.addWord(headers, "Tuesday, 01 December 2015", createItem(6), "A", "http://www.example.com/a");
+
+        assertEquals(3, headers.size());
+        assertEquals("Tuesday, 01 December 2015", headers.get(0).getName());
+        assertEquals(2, headers.get(0).getChildrenSize());
+        assertEquals(6, headers.get(0).getItemId(1));
+    }
+
+    @Test
+    public void addWordMovesAWordThatWasBookmarkedAgain() {
+        ArrayList<MyWordsHeader> headers = snapshot.edit();
+        MyWordsSnapshot.addWord(headers, TODAY, createItem(1), "A", "http://www.example.com/a");
+
+        assertEquals(1, headers.get(0).getItemId(1));
+        assertIds(headers.get(1), snapshot.getHeaders().get(1).getItemId(0), 2);
+    }
+
+    @Test
+    public void addWordGivesTheNewInfoHeaderAnUnusedId() {
+        MyWordsHeader day = new MyWordsHeader(TODAY);
+        day.addChild(new MyWordsInfoHeader("A", "http://www.example.com/a"));
+        day.addChild(createItem(1));
+        day.addChild(new MyWordsInfoHeader("B", "http://www.example.com/b"));
+        day.addChild(createItem(2));
+        day.addChild(new MyWordsInfoHeader("A", "http://www.example.com/a"));
+        day.addChild(createItem(3));
+        ArrayList<MyWordsHeader> headers = new ArrayList<>(Collections.singletonList(day));
+
+        // Only one info header of A is left before the new one, which counted as its second occurrence
+        MyWordsSnapshot.removeWords(headers, Collections.singleton(1L));
+        MyWordsSnapshot.addWord(headers, TODAY, createItem(4), "A", "http://www.example.com/a");
+
+        MyWordsHeader today = headers.get(0);
+        HashSet<Long> ids = new HashSet<>();
+        for (int i = 0; i < today.getChildrenSize(); i++)
+            assertTrue(ids.add(today.getItemId(i)));
+        assertEquals(6, ids.size());
+    }
+
+    @Test
+    public void nextCreatesANewVersion() {
+        MyWordsSnapshot next = snapshot.next(snapshot.edit());
+
+        assertEquals(snapshot.getVersion() + 1, next.getVersion());
+        assertNull(next.findItem(42));
+        assertEquals(3, next.findItem(3).getItemId());
+    }
+
+    private static MyWordsItem createItem(long id) {
+        return new MyWordsItem(id, "wort" + id, "word" + id, "Kontext " + id, "de", "en");
+    }
+
+    private static void assertIds(MyWordsHeader header, long... ids) {
+        long[] actual = new long[header.getChildrenSize()];
+        for (int i = 0; i < actual.length; i++)
+            actual[i] = header.getItemId(i);
+        assertEquals(Arrays.toString(ids), Arrays.toString(actual));
+    }
+}
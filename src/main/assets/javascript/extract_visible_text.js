@@ -0,0 +1,39 @@
+/**
+ * Returns the distinct words of all text nodes that are currently visible in the viewport
+ */
+function getVisibleWords(maxWords) {
+    maxWords = maxWords || 500;
+
+    var words = [];
+    var seen = {};
+    var viewportHeight = window.innerHeight || document.documentElement.clientHeight;
+    var viewportWidth = window.innerWidth || document.documentElement.clientWidth;
+
+    var walker = document.createTreeWalker(document.body, NodeFilter.SHOW_TEXT, {
+        acceptNode: function(node) {
+            var parent = node.parentNode;
+            if (!parent || /^(SCRIPT|STYLE|NOSCRIPT|TEXTAREA)$/.test(parent.nodeName))
+                return NodeFilter.FILTER_REJECT;
+            if (node.nodeValue.trim() == "")
+                return NodeFilter.FILTER_SKIP;
+
+            var rect = parent.getBoundingClientRect();
+            if (rect.bottom < 0 || rect.top > viewportHeight || rect.right < 0 || rect.left > viewportWidth)
+                return NodeFilter.FILTER_SKIP;
+            return NodeFilter.FILTER_ACCEPT;
+        }
+    }, false);
+
+    while (walker.nextNode() && words.length < maxWords) {
+        var tokens = walker.currentNode.nodeValue.split(/[\s.,;:!?()\[\]{}"'«»„“”‘’\-–—\/\\0-9]+/);
+        for (var i = 0; i < tokens.length && words.length < maxWords; i++) {
+            var word = tokens[i];
+            if (word != "" && !seen.hasOwnProperty(word)) {
+                seen[word] = true;
+                words.push(word);
+            }
+        }
+    }
+
+    return words;
+}
@@ -1,6 +1,11 @@
 function injectCSS(string) {
+    // The css may be injected early and again after the page finished loading
+    if (document.getElementById("zeeguu-css"))
+        return;
+
     var css = document.createElement("style");
+    css.id = "zeeguu-css";
     css.type = "text/css";
     css.innerHTML = string;
-    document.head.appendChild(css);
-}
\ No newline at end of file
+    (document.head || document.documentElement).appendChild(css);
+}
@@ -1,7 +1,113 @@
-document.addEventListener("selectionchange", function() {
-    if (window.getSelection().toString().trim() != "")
-        Android.updateTranslation(getExtendedSelection());
-        //Android.updateText(getExtendedSelection());
-    else
-        Android.hideTranslation();
-}, false);
\ No newline at end of file
+if (!window.zeeguuSelectionListener) {
+    /**
+     * Messages for Android are queued and sent once per animation frame as one batch,
+     * selection changes can fire many times per frame while the user drags the selection
+     */
+    window.zeeguuBridge = {
+        queue: [],
+        scheduled: false,
+
+        post: function(type) {
+            this.queue.push(type);
+            if (!this.scheduled) {
+                this.scheduled = true;
+                window.requestAnimationFrame(function() {
+                    zeeguuBridge.flush();
+                });
+            }
+        },
+
+        flush: function() {
+            var types = this.queue;
+            this.queue = [];
+            this.scheduled = false;
+
+            // Only the latest selection state is sent, its data is read once per frame
+            var selectionType = null, updateText = false;
+            for (var i = 0; i < types.length; i++) {
+                if (types[i] == "updateText")
+                    updateText = true;
+                else
+                    selectionType = types[i];
+            }
+
+            var messages = [];
+            if (selectionType == "updateTranslation")
+                messages.push({"type": "updateTranslation", "selection": getExtendedSelection()});
+            else if (selectionType == "hideTranslation")
+                messages.push({"type": "hideTranslation"});
+            if (updateText)
+                messages.push({"type": "updateText", "selection": getExtendedSelection()});
+
+            if (messages.length > 0)
+                Android.dispatchMessages(JSON.stringify(messages));
+
+            // The context is only sent once the selection stopped changing
+            if (selectionType != null)
+                window.clearTimeout(this.contextTimer);
+            if (selectionType == "updateTranslation") {
+                this.contextTimer = window.setTimeout(function() {
+                    zeeguuBridge.sendContext();
+                }, this.CONTEXT_DELAY);
+            }
+        },
+
+        CONTEXT_DELAY: 300,
+        // Characters of the paragraph that are sent before and after the selection
+        CONTEXT_CHARACTERS: 500,
+        contextTimer: null,
+
+        /**
+         * The surrounding paragraph, title and url are sent for the final selection, so that
+         * Android can extract the context for a bookmark without asking the page again
+         */
+        sendContext: function() {
+            var selection = window.getSelection();
+            if (selection.rangeCount == 0 || selection.toString().trim() == "")
+                return;
+
+            Android.dispatchMessages(JSON.stringify([{
+                "type": "selectionContext",
+                "selection": getExtendedSelection(),
+                "paragraph": this.paragraphAround(selection.getRangeAt(0)),
+                "title": document.title,
+                "url": document.URL
+            }]));
+        },
+
+        /**
+         * Text of the nearest block around the selection, limited to CONTEXT_CHARACTERS on
+         * each side, so that a large container does not send the whole article
+         */
+        paragraphAround: function(range) {
+            var block = range.startContainer;
+            if (block.nodeType != Node.ELEMENT_NODE)
+                block = block.parentNode;
+            while (block && block != document.body && block.parentNode
+                    && window.getComputedStyle(block).display.indexOf("inline") == 0)
+                block = block.parentNode;
+            if (!block)
+                return "";
+
+            var before = document.createRange();
+            before.setStart(block, 0);
+            before.setEnd(range.startContainer, range.startOffset);
+
+            var text = block.textContent;
+            var start = before.toString().length;
+            var end = start + range.toString().length;
+            return text.substring(Math.max(0, start - this.CONTEXT_CHARACTERS),
+                    Math.min(text.length, end + this.CONTEXT_CHARACTERS));
+        }
+    };
+
+    window.zeeguuSelectionListener = function() {
+        if (window.getSelection().toString().trim() != "")
+            zeeguuBridge.post("updateTranslation");
+            //zeeguuBridge.post("updateText");
+        else
+            zeeguuBridge.post("hideTranslation");
+    };
+
+    document.addEventListener("selectionchange", window.zeeguuSelectionListener, false);
+}
@@ -0,0 +1,94 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Text assets (javascript, css) read once and kept in memory, because they are injected into
+ * every page. The cache is shared by the whole app and limited to MAX_SIZE bytes.
+ */
+public class AssetCache {
+
+    private static final int MAX_SIZE = 1024 * 1024;
+    private static final int BUFFER_SIZE = 8192;
+
+    private static AssetCache instance;
+
+    private final AssetManager assets;
+    private final LruCache<String, String> cache;
+
+    public static synchronized AssetCache getInstance(Context context) {
+        if (instance == null)
+            instance = new AssetCache(context.getApplicationContext().getAssets());
+        return instance;
+    }
+
+    private AssetCache(AssetManager assets) {
+        this.assets = assets;
+        this.cache = new LruCache<String, String>(MAX_SIZE) {
+            @Override
+            protected int sizeOf(String path, String content) {
+                return content.length() * 2;
+            }
+        };
+    }
+
+    /**
+     * Returns the content of the asset, or "" if it cannot be read
+     */
+    public String get(String path) {
+        String content = cache.get(path);
+        if (content != null)
+            return content;
+
+        try {
+            content = read(path);
+        } catch (IOException e) {
+            Log.e("asset_cache", path + ": " + e.toString());
+            return "";
+        }
+
+        cache.put(path, content);
+        return content;
+    }
+
+    /**
+     * Reads the assets into the cache in the background, so that they are ready when needed
+     */
+    public void warmUp(final String... paths) {
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                for (String path : paths)
+                    get(path);
+            }
+        });
+
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    private String read(String path) throws IOException {
+        InputStream in = assets.open(path, AssetManager.ACCESS_BUFFER);
+        try {
+            // The size of an asset is known, so it is read into a buffer of the right size at once.
+            // One byte more, so that the end is found without growing the buffer.
+            byte[] data = new byte[Math.max(in.available(), BUFFER_SIZE) + 1];
+            int length = 0;
+            int read;
+            while ((read = in.read(data, length, data.length - length)) != -1) {
+                length += read;
+                if (length == data.length)
+                    data = Arrays.copyOf(data, data.length * 2);
+            }
+            return new String(data, 0, length, "UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}
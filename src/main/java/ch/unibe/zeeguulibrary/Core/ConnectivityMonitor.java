@@ -0,0 +1,131 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.Build;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the current network state, updated by the connectivity broadcasts, so that checking
+ * it does not need a call to the system service. Shared by the whole app.
+ */
+public class ConnectivityMonitor {
+
+    private static ConnectivityMonitor instance;
+
+    private final ConnectivityManager connectivityManager;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile State state;
+
+    /**
+     * Informed on the UI thread when the network state changed
+     */
+    public interface Listener {
+        void onConnectivityChanged(State state, boolean restored);
+    }
+
+    /**
+     * Network state at one point in time
+     */
+    public static class State {
+        private final boolean connected;
+        private final boolean metered;
+        private final int type;
+
+        State(boolean connected, boolean metered, int type) {
+            this.connected = connected;
+            this.metered = metered;
+            this.type = type;
+        }
+
+        public boolean isConnected() {
+            return connected;
+        }
+
+        /**
+         * Whether the user may pay for the data, e.g. on a mobile network
+         */
+        public boolean isMetered() {
+            return metered;
+        }
+
+        /**
+         * ConnectivityManager.TYPE_WIFI, TYPE_MOBILE, ..., or -1 when not connected
+         */
+        public int getType() {
+            return type;
+        }
+    }
+
+    public static synchronized ConnectivityMonitor getInstance(Context context) {
+        if (instance == null)
+            instance = new ConnectivityMonitor(context.getApplicationContext());
+        return instance;
+    }
+
+    private ConnectivityMonitor(Context context) {
+        connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        state = queryState();
+
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                onNetworkChanged();
+            }
+        }, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isConnected() {
+        return state.connected;
+    }
+
+    public boolean isMetered() {
+        return state.metered;
+    }
+
+    private void onNetworkChanged() {
+        State oldState = state;
+        State newState = queryState();
+        state = newState;
+
+        // The broadcast is also sent once when the receiver is registered
+        if (oldState.connected == newState.connected && oldState.type == newState.type
+                && oldState.metered == newState.metered)
+            return;
+
+        boolean restored = !oldState.connected && newState.connected;
+        for (Listener listener : listeners)
+            listener.onConnectivityChanged(newState, restored);
+    }
+
+    private State queryState() {
+        NetworkInfo activeNetwork = connectivityManager.getActiveNetworkInfo();
+        if (activeNetwork == null || !activeNetwork.isConnected())
+            return new State(false, false, -1);
+
+        boolean metered;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)
+            metered = connectivityManager.isActiveNetworkMetered();
+        else
+            metered = activeNetwork.getType() == ConnectivityManager.TYPE_MOBILE;
+
+        return new State(true, metered, activeNetwork.getType());
+    }
+}
@@ -0,0 +1,64 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Collects the changes of the account and informs the activity once about all of them.
+ * During a login or a sync the words, the languages and the session often change right after
+ * each other, without the dispatcher every change would refresh the whole interface.
+ */
+class DataChangeDispatcher {
+
+    // What changed, several changes are combined
+    static final int WORDS = 1;
+    static final int SESSION = 1 << 1;
+    static final int LANGUAGE_FROM = 1 << 2;
+    static final int LANGUAGE_TO = 1 << 3;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private ZeeguuAccount.ZeeguuAccountCallbacks callback;
+    private int pendingChanges;
+
+    private final Runnable dispatchChanges = new Runnable() {
+        @Override
+        public void run() {
+            int changes;
+            synchronized (DataChangeDispatcher.this) {
+                changes = pendingChanges;
+                pendingChanges = 0;
+            }
+            deliver(changes);
+        }
+    };
+
+    DataChangeDispatcher(ZeeguuAccount.ZeeguuAccountCallbacks callback) {
+        this.callback = callback;
+    }
+
+    void setCallback(ZeeguuAccount.ZeeguuAccountCallbacks callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * Remembers the change, the activity is informed when the UI thread is idle again
+     */
+    synchronized void dispatch(int changes) {
+        if (pendingChanges == 0)
+            handler.post(dispatchChanges);
+        pendingChanges |= changes;
+    }
+
+    private void deliver(int changes) {
+        if (changes == 0)
+            return;
+
+        if ((changes & LANGUAGE_FROM) != 0)
+            callback.notifyLanguageChanged(true);
+        if ((changes & LANGUAGE_TO) != 0)
+            callback.notifyLanguageChanged(false);
+
+        if ((changes & (WORDS | SESSION)) != 0)
+            callback.notifyDataChanged((changes & WORDS) != 0);
+    }
+}
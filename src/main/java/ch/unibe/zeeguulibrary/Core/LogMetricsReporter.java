@@ -0,0 +1,19 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import android.util.Log;
+
+import java.util.List;
+
+/**
+ * Writes the request metrics to the log, one line per endpoint
+ */
+public class LogMetricsReporter implements RequestMetrics.Reporter {
+
+    private static final String TAG = "request_metrics";
+
+    @Override
+    public void report(List<RequestMetrics.EndpointStatistics> statistics) {
+        for (RequestMetrics.EndpointStatistics endpoint : statistics)
+            Log.i(TAG, endpoint.toString());
+    }
+}
@@ -0,0 +1,95 @@
+package ch.unibe.zeeguulibrary.Core;
+
+import android.os.SystemClock;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Network;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.VolleyError;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the requests of a RequestQueue for the RequestMetrics. It is the network of the queue,
+ * so it sees when a request leaves the queue, how long it is on the network and how big it is,
+ * and it listens to the queue to know when the request is finished.
+ */
+class RequestMetricsCollector implements Network, RequestQueue.RequestFinishedListener<Object> {
+
+    private final Network network;
+    private final RequestMetrics metrics;
+    private final ConcurrentHashMap<Request<?>, Timing> timings = new ConcurrentHashMap<>();
+
+    private static class Timing {
+        final String endpoint;
+        final long queued;
+        volatile long networkStart = -1;
+        volatile long networkTime;
+        volatile long requestBytes;
+        volatile long responseBytes;
+        volatile boolean error;
+
+        Timing(String endpoint, long queued) {
+            this.endpoint = endpoint;
+            this.queued = queued;
+        }
+    }
+
+    RequestMetricsCollector(Network network, RequestMetrics metrics) {
+        this.network = network;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Must be called right before the request is added to the queue
+     */
+    void onQueued(Request<?> request, String endpoint) {
+        timings.put(request, new Timing(endpoint, SystemClock.elapsedRealtime()));
+    }
+
+    @Override
+    public NetworkResponse performRequest(Request<?> request) throws VolleyError {
+        Timing timing = timings.get(request);
+        if (timing == null)
+            return network.performRequest(request);
+
+        try {
+            byte[] body = request.getBody();
+            timing.requestBytes = body != null ? body.length : 0;
+        } catch (AuthFailureError e) {
+            // the network fails with the same error
+        }
+
+        long start = SystemClock.elapsedRealtime();
+        timing.networkStart = start;
+        try {
+            NetworkResponse response = network.performRequest(request);
+            timing.responseBytes = response.data != null ? response.data.length : 0;
+            return response;
+        } catch (VolleyError error) {
+            timing.error = true;
+            if (error.networkResponse != null && error.networkResponse.data != null)
+                timing.responseBytes = error.networkResponse.data.length;
+            throw error;
+        } finally {
+            // Includes the retries
+            timing.networkTime = SystemClock.elapsedRealtime() - start;
+        }
+    }
+
+    @Override
+    public void onRequestFinished(Request<Object> request) {
+        Timing timing = timings.remove(request);
+        if (timing == null || request.isCanceled())
+            return;
+
+        long totalTime = SystemClock.elapsedRealtime() - timing.queued;
+        // Requests answered from the cache never reach the network
+        long queueTime = timing.networkStart == -1 ? totalTime : timing.networkStart - timing.queued;
+
+        metrics.record(timing.endpoint, queueTime, timing.networkTime, totalTime,
+                timing.requestBytes, timing.responseBytes, timing.error);
+    }
+}
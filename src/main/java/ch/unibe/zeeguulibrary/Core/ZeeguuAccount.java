@@ -11,16 +11,32 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ch.unibe.zeeguulibrary.MyWords.Item;
 import ch.unibe.zeeguulibrary.MyWords.MyWordsHeader;
 import ch.unibe.zeeguulibrary.MyWords.MyWordsItem;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsSnapshot;
 
 public class ZeeguuAccount {
 
     private Activity activity;
     private ZeeguuAccountCallbacks callback;
+    private DataChangeDispatcher dataChanges;
     private SharedPreferences sharedPref;
 
     // User Information
@@ -31,7 +47,38 @@ public class ZeeguuAccount {
     private String languageLearning;
 
     private String myWordsFileName = "zeeguuMyWordsTmp";
-    private ArrayList<MyWordsHeader> myWords;
+    private String myWordsLogFileName = myWordsFileName + ".log";
+    // Readers always get a complete version, changes publish a new snapshot
+    private volatile MyWordsSnapshot myWords = MyWordsSnapshot.EMPTY;
+    private final Object myWordsWriteLock = new Object();
+    // Set while only a part of MyWords (the recent days) is known, which must not replace the
+    // complete MyWords on the phone
+    private volatile boolean myWordsPartial;
+    private final AtomicInteger myWordsFileGeneration = new AtomicInteger();
+    private final Object myWordsFileLock = new Object();
+
+    // Single added or deleted words are appended to a change log, until the next complete save
+    private static final int MAX_MYWORDS_CHANGES = 100;
+    private final AtomicInteger myWordsChanges = new AtomicInteger();
+    // Saves and changes are written one after the other, in the order in which they were made
+    private final ExecutorService myWordsFileExecutor = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>());
+
+    // Format of the days in MyWords, as sent by the server
+    private static final String MYWORDS_DATE_FORMAT = "EEEE, dd MMMM yyyy";
+
+    // Search index over MyWords, updated in the background when MyWords changes
+    private final MyWordsSearchIndex searchIndex = new MyWordsSearchIndex();
+    private final AtomicInteger searchIndexGeneration = new AtomicInteger();
+    private final Object searchIndexLock = new Object();
+    // Version of MyWords whose words are in the search index, a search waits for the current one
+    private static final int SEARCH_INDEX_TIMEOUT = 2000;
+    private int indexedVersion;
+    private final Object indexedVersionLock = new Object();
+
+    // Full text index over the contexts, stored on the phone
+    private String contextIndexFileName = "zeeguuContextIndex";
+    private ContextSearchIndex contextIndex;
 
     /**
      * Callback interface that must be implemented by the container activity
@@ -47,7 +94,7 @@ public class ZeeguuAccount {
     public ZeeguuAccount(Activity activity) {
         this.activity = activity;
         this.sharedPref = PreferenceManager.getDefaultSharedPreferences(activity);
-        this.myWords = new ArrayList<>();
+        this.contextIndex = new ContextSearchIndex(new File(activity.getFilesDir(), contextIndexFileName));
 
         // Make sure that the interface is implemented in the container activity
         try {
@@ -55,11 +102,20 @@ public class ZeeguuAccount {
         } catch (ClassCastException e) {
             throw new ClassCastException("Activity must implement ZeeguuAccountCallbacks");
         }
+        dataChanges = new DataChangeDispatcher(callback);
     }
 
     public void onRestore(Activity activity) {
         this.activity = activity;
         callback = (ZeeguuAccountCallbacks) activity;
+        dataChanges.setCallback(callback);
+    }
+
+    /**
+     * Informs the activity about a change, changes that happen together are delivered once
+     */
+    void dispatchDataChange(int changes) {
+        dataChanges.dispatch(changes);
     }
 
     /**
@@ -72,7 +128,7 @@ public class ZeeguuAccount {
         editor.putString("pref_zeeguu_session_id", sessionID);
         editor.apply();
 
-        callback.notifyDataChanged(false);
+        dataChanges.dispatch(DataChangeDispatcher.SESSION);
     }
 
     public void saveLanguages() {
@@ -83,7 +139,8 @@ public class ZeeguuAccount {
         editor.apply();
 
         //check if language native changed and make a callback to inform what language changed
-        callback.notifyLanguageChanged(!languageNative.equals(tmpLanguageNative));
+        dataChanges.dispatch(languageNative.equals(tmpLanguageNative)
+                ? DataChangeDispatcher.LANGUAGE_TO : DataChangeDispatcher.LANGUAGE_FROM);
     }
 
     public void load() {
@@ -99,7 +156,13 @@ public class ZeeguuAccount {
         email = "";
         password = "";
         sessionID = "";
-        myWords.clear();
+        synchronized (myWordsWriteLock) {
+            myWords = myWords.next(new ArrayList<MyWordsHeader>());
+            myWordsPartial = false;
+        }
+        searchIndex.clear();
+        contextIndex.clear();
+        searchIndexUpdated(myWords.getVersion());
 
         // Delete preferences
         SharedPreferences.Editor editor = sharedPref.edit();
@@ -109,7 +172,7 @@ public class ZeeguuAccount {
         editor.apply();
         myWordsClearOnPhone();
 
-        callback.notifyDataChanged(true);
+        dataChanges.dispatch(DataChangeDispatcher.WORDS);
     }
 
     public void switchLanguages() {
@@ -151,24 +214,180 @@ public class ZeeguuAccount {
         return myWords.isEmpty();
     }
 
+    /**
+     * Removes the word from MyWords and saves the change on the phone, the server is not changed
+     */
     public Item deleteWord(long id) {
-        for (MyWordsHeader myWordsHeader : myWords) {
-            for (int itemPosition = 0; itemPosition < myWordsHeader.getChildrenSize(); itemPosition++) {
-                if (id == myWordsHeader.getChild(itemPosition).getItemId()) {
-                    return myWordsHeader.removeChild(itemPosition);
-                }
+        Item removed = myWords.findItem(id);
+        if (removed != null)
+            deleteWords(Collections.singleton(id));
+        return removed;
+    }
+
+    /**
+     * Removes several words at once, MyWords is only saved once.
+     * Returns the ids of the words that were removed.
+     */
+    public ArrayList<Long> deleteWords(Collection<Long> ids) {
+        final ArrayList<Long> removedIds;
+        synchronized (myWordsWriteLock) {
+            ArrayList<MyWordsHeader> headers = myWords.edit();
+            removedIds = MyWordsSnapshot.removeWords(headers, new HashSet<>(ids));
+            if (removedIds.isEmpty())
+                return removedIds;
+            myWords = myWords.next(headers);
+        }
+
+        for (long id : removedIds)
+            searchIndex.remove(id);
+        myWordsChanged(new MyWordsChange() {
+            @Override
+            void write(BufferedWriter bufferedWriter) throws IOException {
+                MyWordsStorage.writeDeletion(bufferedWriter, removedIds);
+            }
+        });
+        return removedIds;
+    }
+
+    /**
+     * Adds a word that was just bookmarked to today's words, without downloading MyWords again
+     */
+    public void addWord(final MyWordsItem item, final String title, final String url) {
+        final String today = new SimpleDateFormat(MYWORDS_DATE_FORMAT, Locale.US).format(new Date());
+
+        synchronized (myWordsWriteLock) {
+            ArrayList<MyWordsHeader> headers = myWords.edit();
+            MyWordsSnapshot.addWord(headers, today, item, title, url);
+            myWords = myWords.next(headers);
+        }
+        myWordsChanged(new MyWordsChange() {
+            @Override
+            void write(BufferedWriter bufferedWriter) throws IOException {
+                MyWordsStorage.writeAddition(bufferedWriter, today, item, title, url);
             }
+        });
+    }
+
+    private void myWordsChanged(MyWordsChange change) {
+        // A partial MyWords is neither saved nor context-indexed, the complete one follows
+        if (myWordsPartial) {
+            updateSearchIndex(false);
+        } else {
+            saveMyWordsChange(change);
+            updateSearchIndex(true);
         }
-        return null;
+        dataChanges.dispatch(DataChangeDispatcher.WORDS);
     }
 
     public MyWordsItem checkMyWordsForTranslation(String input, String inputLanguage, String outputLanguage) {
-        for (MyWordsHeader myWordsHeader : myWords) {
-            MyWordsItem result = myWordsHeader.checkMyWordsForTranslation(input, inputLanguage, outputLanguage);
-            if (result != null)
-                return result;
+        return myWords.checkMyWordsForTranslation(input, inputLanguage, outputLanguage);
+    }
+
+    /**
+     * Returns the ids of the words whose word, translation or context contain words starting
+     * with all words of the query. Waits until the words of the current MyWords are indexed,
+     * so it should not be called from the UI thread.
+     */
+    public HashSet<Long> searchMyWords(String query) {
+        int version = myWords.getVersion();
+        long timeout = System.currentTimeMillis() + SEARCH_INDEX_TIMEOUT;
+
+        synchronized (indexedVersionLock) {
+            long wait;
+            while (indexedVersion < version && (wait = timeout - System.currentTimeMillis()) > 0) {
+                try {
+                    indexedVersionLock.wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return searchIndex.search(query);
+    }
+
+    private void searchIndexUpdated(int version) {
+        synchronized (indexedVersionLock) {
+            indexedVersion = Math.max(indexedVersion, version);
+            indexedVersionLock.notifyAll();
+        }
+    }
+
+    /**
+     * Searches the contexts of all words, returns the matching words, the newest first.
+     * Reads from the phone's storage, so it should not be called from the UI thread.
+     */
+    public ArrayList<MyWordsItem> searchContexts(String query, int limit) {
+        ArrayList<Long> ids;
+        try {
+            ids = contextIndex.search(query, limit);
+        } catch (IOException e) {
+            Log.e("zeeguu_context_index", e.toString());
+            return new ArrayList<>();
         }
-        return null;
+
+        final HashMap<Long, Integer> ranks = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++)
+            ranks.put(ids.get(i), i);
+
+        ArrayList<MyWordsItem> result = new ArrayList<>(ids.size());
+        for (MyWordsHeader header : myWords.getHeaders())
+            for (int i = 0; i < header.getChildrenSize(); i++)
+                if (ranks.containsKey(header.getChild(i).getItemId()))
+                    result.add((MyWordsItem) header.getChild(i));
+
+        Collections.sort(result, new Comparator<MyWordsItem>() {
+            @Override
+            public int compare(MyWordsItem lhs, MyWordsItem rhs) {
+                return ranks.get(lhs.getItemId()) - ranks.get(rhs.getItemId());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Brings the search indexes up to date with MyWords, only the changed words are indexed again
+     */
+    private void updateSearchIndex(final boolean updateContextIndex) {
+        final MyWordsSnapshot snapshot = myWords;
+        final int generation = searchIndexGeneration.incrementAndGet();
+
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                // Searching stays possible while the index is updated, only updates wait for each other
+                synchronized (searchIndexLock) {
+                    if (generation != searchIndexGeneration.get())
+                        return; // a newer update follows
+
+                    ArrayList<MyWordsItem> items = new ArrayList<>();
+                    for (MyWordsHeader header : snapshot.getHeaders())
+                        for (int i = 0; i < header.getChildrenSize(); i++)
+                            if (header.getChild(i) instanceof MyWordsItem)
+                                items.add((MyWordsItem) header.getChild(i));
+
+                    HashSet<Long> ids = new HashSet<>(items.size() * 2);
+                    HashMap<Long, String> contexts = new HashMap<>(items.size() * 2);
+                    for (MyWordsItem item : items) {
+                        searchIndex.add(item.getItemId(), item.getLanguageFromWord(), item.getLanguageToWord(), item.getContext());
+                        ids.add(item.getItemId());
+                        contexts.put(item.getItemId(), item.getContext());
+                    }
+                    searchIndex.retainAll(ids);
+                    searchIndexUpdated(snapshot.getVersion());
+
+                    if (!updateContextIndex)
+                        return;
+                    try {
+                        contextIndex.update(contexts);
+                    } catch (IOException e) {
+                        Log.e("zeeguu_context_index", e.toString());
+                    }
+                }
+            }
+        });
+
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
     }
 
     // Getters and Setters
@@ -214,14 +433,42 @@ public class ZeeguuAccount {
         saveLanguages();
     }
 
-    public ArrayList<MyWordsHeader> getMyWords() {
+    /**
+     * Returns the current version of MyWords, it does not change anymore and can be read from
+     * any thread. Changes to MyWords are only visible in the list returned afterwards.
+     */
+    public List<MyWordsHeader> getMyWords() {
+        return myWords.getHeaders();
+    }
+
+    public MyWordsSnapshot getMyWordsSnapshot() {
         return myWords;
     }
 
-    public void setMyWords(ArrayList<MyWordsHeader> myWords) {
-        this.myWords = myWords;
-        saveMyWordsOnPhone();
-        callback.notifyDataChanged(true);
+    /**
+     * The headers must not be changed anymore afterwards
+     */
+    public void setMyWords(List<MyWordsHeader> myWords) {
+        setMyWords(myWords, true);
+    }
+
+    /**
+     * @param complete false if only a part of MyWords (for example the recent days) is set,
+     *                 it is then only displayed, but not saved or indexed on the phone, also not
+     *                 after words were added or deleted, until the complete MyWords is set
+     */
+    public void setMyWords(List<MyWordsHeader> myWords, boolean complete) {
+        synchronized (myWordsWriteLock) {
+            this.myWords = this.myWords.next(myWords);
+            myWordsPartial = !complete;
+        }
+        if (complete) {
+            saveMyWordsOnPhone();
+            updateSearchIndex(true);
+        } else {
+            updateSearchIndex(false);
+        }
+        dataChanges.dispatch(DataChangeDispatcher.WORDS);
     }
 
     public boolean isHighlightOn() {
@@ -230,7 +477,7 @@ public class ZeeguuAccount {
 
     public void highlightMyWords() {
         if (isHighlightOn()) {
-            for(String s : getMyWordsOfThisLanguage())
+            for (String s : getMyWordsOfThisLanguage())
                 callback.highlight(s);
         }
     }
@@ -240,56 +487,98 @@ public class ZeeguuAccount {
     }
 
     public ArrayList<String> getMyWordsOfThisLanguage() {
-        ArrayList<String> list = new ArrayList<>();
-
-        for (MyWordsHeader h : myWords)
-            for (int i = 0; i < h.getChildrenSize(); i++) {
-                Item item = h.getChild(i);
-                if (item.isLanguageCombination(languageLearning, languageNative)) {
-                    MyWordsItem myWordsItem = (MyWordsItem) item;
-
-                    list.add(myWordsItem.getLanguageFromWord());
-                    list.add(myWordsItem.getLanguageToWord());
-                }
-            }
-        return list;
+        return myWords.getWordsOfLanguages(languageLearning, languageNative);
     }
 
     ////  Loading and writing my words from and to memory, IO interface ////
+    /**
+     * A single change of MyWords, as it is written to the change log
+     */
+    private static abstract class MyWordsChange {
+        abstract void write(BufferedWriter bufferedWriter) throws IOException;
+    }
+
+    /**
+     * Saves the current version of MyWords in the background, a newer version replaces
+     * an older one that was not saved yet. The change log is not needed anymore afterwards.
+     */
     private void saveMyWordsOnPhone() {
-        try {
-            File file = new File(activity.getFilesDir(), myWordsFileName);
-            file.createNewFile();
+        final MyWordsSnapshot snapshot = myWords;
+        final int generation = myWordsFileGeneration.incrementAndGet();
+        myWordsChanges.set(0);
 
-            BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(file));
-            write(bufferedWriter);
-            bufferedWriter.close();
+        myWordsFileExecutor.execute(new Runnable() {
+            public void run() {
+                synchronized (myWordsFileLock) {
+                    if (generation != myWordsFileGeneration.get())
+                        return; // a newer version gets saved
 
-            Log.d("zeeguu_myWords", "Saved words to file at location: " + file.getPath());
+                    try {
+                        File file = new File(activity.getFilesDir(), myWordsFileName);
+                        File tmpFile = new File(activity.getFilesDir(), myWordsFileName + ".new");
 
-        } catch (IOException e) {
-            Log.e("zeeguu_myWords", e.getMessage());
-        }
+                        BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(tmpFile));
+                        MyWordsStorage.write(bufferedWriter, snapshot.getHeaders());
+                        bufferedWriter.close();
+
+                        if (!tmpFile.renameTo(file))
+                            throw new IOException("Could not replace " + file.getPath());
+                        new File(activity.getFilesDir(), myWordsLogFileName).delete();
+
+                        Log.d("zeeguu_myWords", "Saved words to file at location: " + file.getPath());
+
+                    } catch (IOException e) {
+                        Log.e("zeeguu_myWords", e.getMessage());
+                    }
+                }
+            }
+        });
     }
 
-    private void write(BufferedWriter bufferedWriter) throws IOException {
-        bufferedWriter.write("" + myWords.size());
-        bufferedWriter.newLine();
-        for (MyWordsHeader r : myWords) {
-            bufferedWriter.write(r.getName());
-            bufferedWriter.newLine();
-            r.write(bufferedWriter);
-            bufferedWriter.flush();
+    /**
+     * Appends a single change to the change log in the background instead of writing all of
+     * MyWords again. After MAX_MYWORDS_CHANGES changes, MyWords is saved completely.
+     */
+    private void saveMyWordsChange(final MyWordsChange change) {
+        if (myWordsChanges.incrementAndGet() > MAX_MYWORDS_CHANGES) {
+            saveMyWordsOnPhone();
+            return;
         }
+        final int generation = myWordsFileGeneration.get();
+
+        myWordsFileExecutor.execute(new Runnable() {
+            public void run() {
+                synchronized (myWordsFileLock) {
+                    if (generation != myWordsFileGeneration.get())
+                        return; // a complete save follows, which contains the change
+
+                    try {
+                        File logFile = new File(activity.getFilesDir(), myWordsLogFileName);
+                        BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(logFile, true));
+                        change.write(bufferedWriter);
+                        bufferedWriter.close();
+
+                    } catch (IOException e) {
+                        Log.e("zeeguu_myWords", e.getMessage());
+                    }
+                }
+            }
+        });
     }
 
     public void myWordsLoadFromPhone() {
         try {
             File file = new File(activity.getFilesDir(), myWordsFileName);
             BufferedReader bufferedReader = new BufferedReader(new FileReader(file));
-            read(bufferedReader);
+            ArrayList<MyWordsHeader> headers = MyWordsStorage.read(bufferedReader);
             bufferedReader.close();
-            callback.notifyDataChanged(true);
+            myWordsChanges.set(readMyWordsChanges(headers));
+            synchronized (myWordsWriteLock) {
+                myWords = myWords.next(headers);
+                myWordsPartial = false;
+            }
+            updateSearchIndex(true);
+            dataChanges.dispatch(DataChangeDispatcher.WORDS);
 
             Log.d("zeeguu_myWords", "Load words from file at location: " + activity.getFilesDir().toString());
 
@@ -298,28 +587,45 @@ public class ZeeguuAccount {
         }
     }
 
-    private void read(BufferedReader bufferedReader) throws IOException {
-        myWords.clear();
+    /**
+     * Applies the changes that were made after MyWords was saved completely
+     *
+     * @return the number of changes
+     */
+    private int readMyWordsChanges(ArrayList<MyWordsHeader> headers) {
+        File logFile = new File(activity.getFilesDir(), myWordsLogFileName);
+        if (!logFile.exists())
+            return 0;
 
-        int size = Integer.parseInt(bufferedReader.readLine());
-        for (int i = 0; i < size; i++) {
-            //get the name of the header group and create it
-            MyWordsHeader r = new MyWordsHeader(bufferedReader.readLine().trim());
-            //read all entries from the group and add it to the list
-            r.read(bufferedReader);
-            myWords.add(r);
+        try {
+            BufferedReader bufferedReader = new BufferedReader(new FileReader(logFile));
+            try {
+                return MyWordsStorage.readChanges(bufferedReader, headers);
+            } finally {
+                bufferedReader.close();
+            }
+        } catch (Exception e) {
+            // The changes are downloaded with MyWords again
+            Log.e("zeeguu_myWords", "Changes of MyWords could not be loaded: " + e.toString());
+            return 0;
         }
     }
 
     private void myWordsClearOnPhone() {
-        try {
-            File file = new File(activity.getFilesDir(), myWordsFileName);
-            BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(file));
-            bufferedWriter.write("");
-            bufferedWriter.close();
-            callback.notifyDataChanged(true);
-        } catch (Exception e) {
-            Log.e("zeeguu_myWords", "MyWords on phone could not be deleted");
+        // Words that are still being saved must not be written after the file is cleared
+        myWordsFileGeneration.incrementAndGet();
+        synchronized (myWordsFileLock) {
+            try {
+                File file = new File(activity.getFilesDir(), myWordsFileName);
+                BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(file));
+                bufferedWriter.write("");
+                bufferedWriter.close();
+                new File(activity.getFilesDir(), myWordsLogFileName).delete();
+                myWordsChanges.set(0);
+                dataChanges.dispatch(DataChangeDispatcher.WORDS);
+            } catch (Exception e) {
+                Log.e("zeeguu_myWords", "MyWords on phone could not be deleted");
+            }
         }
     }
 }
\ No newline at end of file
@@ -1,33 +1,44 @@
 package ch.unibe.zeeguulibrary.Core;
 
 import android.app.Activity;
-import android.content.Context;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
+import android.content.pm.ApplicationInfo;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+import android.util.LruCache;
 
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
 import com.android.volley.Response;
 import com.android.volley.RetryPolicy;
 import com.android.volley.VolleyError;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.DiskBasedCache;
+import com.android.volley.toolbox.HurlStack;
 import com.android.volley.toolbox.JsonArrayRequest;
 import com.android.volley.toolbox.JsonObjectRequest;
 import com.android.volley.toolbox.StringRequest;
-import com.android.volley.toolbox.Volley;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ch.unibe.R;
 import ch.unibe.zeeguulibrary.MyWords.MyWordsHeader;
-import ch.unibe.zeeguulibrary.MyWords.MyWordsInfoHeader;
 import ch.unibe.zeeguulibrary.MyWords.MyWordsItem;
 
 /**
@@ -35,9 +46,84 @@ import ch.unibe.zeeguulibrary.MyWords.MyWordsItem;
  */
 public class ZeeguuConnectionManager {
 
-    private final String URL = "https://zeeguu.unibe.ch/";
+    public static final String DEFAULT_API_URL = "https://zeeguu.unibe.ch/";
+    private String apiUrl;
     private RequestQueue queue;
 
+    /**
+     * How urgent a request is. The user waits for interactive requests (translations) and
+     * user-initiated ones (bookmarks, login, refreshing MyWords); both share the main queue, where
+     * the interactive ones go first. Background requests (prefetching, difficulty, learnability,
+     * content extraction, automatic syncs) have their own queue with fewer threads, so even long
+     * batches of them never delay the others.
+     */
+    private enum RequestClass {
+        INTERACTIVE(Request.Priority.IMMEDIATE),
+        USER_INITIATED(Request.Priority.NORMAL),
+        BACKGROUND(Request.Priority.LOW);
+
+        private final Request.Priority priority;
+
+        RequestClass(Request.Priority priority) {
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Request whose priority is the one of its request class, which is set when it is queued
+     */
+    private interface ClassifiedRequest {
+        void setRequestClass(RequestClass requestClass);
+    }
+
+    private static final int BACKGROUND_THREADS = 2;
+    private RequestQueue backgroundQueue;
+
+    // Latency, errors and sizes of the requests per endpoint
+    private static final int METRICS_REPORT_INTERVAL = 50;
+    private RequestMetrics requestMetrics;
+    private RequestMetricsCollector metricsCollector;
+
+    // Translation prefetching
+    private static final int TRANSLATION_CACHE_SIZE = 1000;
+    private static final int PREFETCH_BATCH_SIZE = 5;
+    private static final int PREFETCH_MAX_WORDS = 50;
+    private static final int PREFETCH_MIN_WORD_LENGTH = 4;
+    private LruCache<String, String> translationCache;
+    private ArrayList<String> prefetchQueue;
+    // Languages of the words in the queue, a new page can have other ones than the running batch
+    private String prefetchInputLanguageCode;
+    private String prefetchOutputLanguageCode;
+    private int prefetchRunning;
+
+    // Offline cache for the article contents
+    private static final long CONTENT_CACHE_SIZE = 20 * 1024 * 1024;
+    private ContentCache contentCache;
+
+    // Number of days that are downloaded first after the login
+    private static final int RECENT_MYWORDS_DAYS = 14;
+
+    // Local changes to MyWords are compared with the server after a while, all at once
+    private static final int MYWORDS_RECONCILE_DELAY = 60 * 1000;
+    private Handler reconcileHandler;
+    // Set while local changes have not been compared with the server yet, also if the reconcile
+    // came while offline
+    private boolean reconcilePending;
+    private Runnable reconcileMyWords = new Runnable() {
+        @Override
+        public void run() {
+            getMyWordsFromServer(RequestClass.BACKGROUND);
+        }
+    };
+
+    // The responses of MyWords are parsed in parallel, only the one of the newest request is used
+    private final AtomicInteger myWordsRequestGeneration = new AtomicInteger();
+    private final Object myWordsResponseLock = new Object();
+
+    // Network state, kept up to date by the system broadcasts
+    private ConnectivityMonitor connectivity;
+    private ConnectivityListener connectivityListener;
+
     private ZeeguuAccount account;
     private Activity activity;
     private String selection, selectionOutputLanguage, translation;
@@ -74,8 +160,16 @@ public class ZeeguuConnectionManager {
     }
 
     public ZeeguuConnectionManager(Activity activity) {
+        this(activity, DEFAULT_API_URL);
+    }
+
+    /**
+     * Connects to another server than the Zeeguu API, e.g. a local server for testing
+     */
+    public ZeeguuConnectionManager(Activity activity, String apiUrl) {
         this.account = new ZeeguuAccount(activity);
         this.activity = activity;
+        setApiUrl(apiUrl);
 
         // Make sure that the interface is implemented in the container activity
         try {
@@ -84,7 +178,26 @@ public class ZeeguuConnectionManager {
             throw new ClassCastException("Activity must implement ZeeguuConnectionManagerCallbacks");
         }
 
-        queue = Volley.newRequestQueue(activity);
+        // Same queues as Volley.newRequestQueue, with the network measured for the metrics.
+        // Every queue needs its own cache directory, the cache is not made to be shared.
+        requestMetrics = new RequestMetrics(METRICS_REPORT_INTERVAL);
+        if ((activity.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0)
+            requestMetrics.addReporter(new LogMetricsReporter());
+        metricsCollector = new RequestMetricsCollector(new BasicNetwork(new HurlStack()), requestMetrics);
+        queue = new RequestQueue(new DiskBasedCache(new File(activity.getCacheDir(), "volley")), metricsCollector);
+        queue.addRequestFinishedListener(metricsCollector);
+        queue.start();
+        backgroundQueue = new RequestQueue(new DiskBasedCache(new File(activity.getCacheDir(), "volley_background")),
+                metricsCollector, BACKGROUND_THREADS);
+        backgroundQueue.addRequestFinishedListener(metricsCollector);
+        backgroundQueue.start();
+        reconcileHandler = new Handler(Looper.getMainLooper());
+        translationCache = new LruCache<>(TRANSLATION_CACHE_SIZE);
+        prefetchQueue = new ArrayList<>();
+        contentCache = new ContentCache(new File(activity.getCacheDir(), "zeeguu_content"), CONTENT_CACHE_SIZE);
+        connectivity = ConnectivityMonitor.getInstance(activity);
+        connectivityListener = new ConnectivityListener(this, connectivity);
+        connectivity.addListener(connectivityListener);
 
         // Load user information
         account.load();
@@ -95,9 +208,9 @@ public class ZeeguuConnectionManager {
                 getSessionId(account.getEmail(), account.getPassword());
             else if (!account.isLanguageSet()) {
                 getUserLanguages();
-                getMyWordsFromServer();
+                getRecentMyWordsFromServer(RECENT_MYWORDS_DAYS);
             } else {
-                getMyWordsFromServer();
+                getRecentMyWordsFromServer(RECENT_MYWORDS_DAYS);
             }
         }
     }
@@ -112,10 +225,92 @@ public class ZeeguuConnectionManager {
         callback = (ZeeguuConnectionManagerCallbacks) activity;
     }
 
+    /**
+     * Must be called when the connection manager is not used anymore (e.g. in onDestroy of the
+     * activity), so that its queues are stopped and it is not informed about the network anymore
+     */
+    public void release() {
+        connectivity.removeListener(connectivityListener);
+        reconcileHandler.removeCallbacks(reconcileMyWords);
+        reconcilePending = false;
+        queue.stop();
+        backgroundQueue.stop();
+    }
+
+    /**
+     * Does only what could not be done while offline: the session, the languages and a reconcile
+     * of MyWords that is still pending. A change between networks (e.g. Wi-Fi and mobile) does
+     * not download anything.
+     */
+    private void onConnectivityRestored() {
+        if (!account.isUserLoggedIn())
+            return;
+
+        if (!account.isUserInSession()) {
+            getSessionId(account.getEmail(), account.getPassword());
+        } else {
+            if (!account.isLanguageSet())
+                getUserLanguages();
+            if (reconcilePending)
+                getMyWordsFromServer(RequestClass.BACKGROUND);
+        }
+    }
+
+    public ConnectivityMonitor getConnectivityMonitor() {
+        return connectivity;
+    }
+
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    /**
+     * Sets the base URL of the API, used by the following requests
+     */
+    public void setApiUrl(String apiUrl) {
+        this.apiUrl = apiUrl.endsWith("/") ? apiUrl : apiUrl + "/";
+    }
+
+    /**
+     * Request counts, errors, sizes and latencies per endpoint, reporters can be added to it
+     */
+    public RequestMetrics getRequestMetrics() {
+        return requestMetrics;
+    }
+
+    private <R extends Request<?> & ClassifiedRequest> void addRequest(R request, RequestClass requestClass) {
+        request.setRequestClass(requestClass);
+        queue(request, requestClass);
+    }
+
+    private void queue(Request<?> request, RequestClass requestClass) {
+        metricsCollector.onQueued(request, getEndpoint(request.getUrl()));
+        if (requestClass == RequestClass.BACKGROUND)
+            backgroundQueue.add(request);
+        else
+            queue.add(request);
+    }
+
+    /**
+     * The endpoint is the first part of the path after the API URL, e.g. "translate"
+     */
+    private String getEndpoint(String url) {
+        String path = url.startsWith(apiUrl) ? url.substring(apiUrl.length()) : Uri.parse(url).getPath();
+        if (path == null)
+            return "";
+        if (path.startsWith("/"))
+            path = path.substring(1);
+
+        int end = 0;
+        while (end < path.length() && path.charAt(end) != '/' && path.charAt(end) != '?')
+            end++;
+        return path.substring(0, end);
+    }
+
     public void createAccountOnServer(final String username, final String email, final String password) {
-        String url_create_account = URL + "add_user/" + email;
+        String url_create_account = apiUrl + "add_user/" + email;
 
-        StringRequest request = new StringRequest(Request.Method.POST,
+        ZeeguuStringRequest request = new ZeeguuStringRequest(Request.Method.POST,
                 url_create_account, new Response.Listener<String>() {
 
             @Override
@@ -127,7 +322,7 @@ public class ZeeguuConnectionManager {
                 callback.displayMessage(activity.getString(R.string.login_successful));
                 callback.onZeeguuLoginSuccessful();
                 getUserLanguages();
-                getMyWordsFromServer();
+                getRecentMyWordsFromServer(RECENT_MYWORDS_DAYS);
             }
         }, new Response.ErrorListener() {
 
@@ -147,7 +342,7 @@ public class ZeeguuConnectionManager {
             }
         };
 
-        queue.add(request);
+        addRequest(request, RequestClass.USER_INITIATED);
     }
 
     /**
@@ -157,9 +352,9 @@ public class ZeeguuConnectionManager {
         if (!isNetworkAvailable())
             return; // ignore here
 
-        String urlSessionID = URL + "session/" + email;
+        String urlSessionID = apiUrl + "session/" + email;
 
-        StringRequest request = new StringRequest(Request.Method.POST,
+        ZeeguuStringRequest request = new ZeeguuStringRequest(Request.Method.POST,
                 urlSessionID, new Response.Listener<String>() {
 
             @Override
@@ -171,7 +366,7 @@ public class ZeeguuConnectionManager {
                 callback.displayMessage(activity.getString(R.string.login_successful));
                 callback.onZeeguuLoginSuccessful();
                 getUserLanguages();
-                getMyWordsFromServer();
+                getRecentMyWordsFromServer(RECENT_MYWORDS_DAYS);
             }
         }, new Response.ErrorListener() {
 
@@ -189,7 +384,7 @@ public class ZeeguuConnectionManager {
             }
         };
 
-        queue.add(request);
+        addRequest(request, RequestClass.USER_INITIATED);
     }
 
     /**
@@ -218,12 +413,16 @@ public class ZeeguuConnectionManager {
             return;
         }
 
-        // /translate/<from_lang_code>/<to_lang_code>
-        String urlTranslation = URL + "translate/" + inputLanguageCode + "/" + outputLanguageCode +
-                "?session=" + account.getSessionID();
+        // Translation was already prefetched
+        String cachedTranslation = translationCache.get(getTranslationCacheKey(input, inputLanguageCode, outputLanguageCode));
+        if (cachedTranslation != null) {
+            callback.setTranslation(cachedTranslation);
+            translation = cachedTranslation;
+            return;
+        }
 
-        StringRequest request = new StringRequest(Request.Method.POST,
-                urlTranslation, new Response.Listener<String>() {
+        ZeeguuStringRequest request = createTranslationRequest(input, inputLanguageCode, outputLanguageCode,
+                new Response.Listener<String>() {
 
             @Override
             public void onResponse(String response) {
@@ -239,7 +438,106 @@ public class ZeeguuConnectionManager {
                 // TODO: handle error responses
                 Log.e("translation", error.toString());
             }
-        }) {
+        });
+
+        // TODO: Set tag and cancel all older translations
+        addRequest(request, RequestClass.INTERACTIVE);
+    }
+
+    /**
+     * Warms the translation cache for words of a page that are likely unknown to the user,
+     * so that tapping them later does not need a request. The words are translated in small
+     * low priority batches.
+     */
+    public void prefetchTranslations(ArrayList<String> words, String inputLanguageCode, String outputLanguageCode) {
+        if (!account.isUserInSession() || !isNetworkAvailable())
+            return;
+        else if (isSameLanguage(inputLanguageCode, outputLanguageCode))
+            return;
+
+        // Words the user already knows do not need to be translated
+        HashSet<String> knownWords = new HashSet<>();
+        for (String word : account.getMyWordsOfThisLanguage())
+            knownWords.add(word.trim().toLowerCase(Locale.getDefault()));
+
+        prefetchQueue.clear();
+        prefetchInputLanguageCode = inputLanguageCode;
+        prefetchOutputLanguageCode = outputLanguageCode;
+        for (String word : words) {
+            String normalized = word.trim().toLowerCase(Locale.getDefault());
+            // Short words are mostly frequent function words the user already knows
+            if (normalized.length() < PREFETCH_MIN_WORD_LENGTH || knownWords.contains(normalized))
+                continue;
+            if (translationCache.get(getTranslationCacheKey(word, inputLanguageCode, outputLanguageCode)) != null)
+                continue;
+
+            prefetchQueue.add(word.trim());
+            if (prefetchQueue.size() == PREFETCH_MAX_WORDS)
+                break;
+        }
+
+        if (prefetchRunning == 0)
+            prefetchNextBatch();
+    }
+
+    /**
+     * Sends the next words of the queue, always in the languages of the queue and not in the ones
+     * of the batch before, which may have been for another page
+     */
+    private void prefetchNextBatch() {
+        int batchSize = Math.min(PREFETCH_BATCH_SIZE, prefetchQueue.size());
+
+        for (int i = 0; i < batchSize; i++) {
+            final String word = prefetchQueue.remove(0);
+            prefetchRunning++;
+
+            ZeeguuStringRequest request = createTranslationRequest(word, prefetchInputLanguageCode, prefetchOutputLanguageCode,
+                    new Response.Listener<String>() {
+
+                @Override
+                public void onResponse(String response) {
+                    onPrefetchFinished();
+                }
+
+            }, new Response.ErrorListener() {
+
+                @Override
+                public void onErrorResponse(VolleyError error) {
+                    Log.e("prefetch_translation", error.toString());
+                    onPrefetchFinished();
+                }
+            });
+
+            addRequest(request, RequestClass.BACKGROUND);
+        }
+    }
+
+    private void onPrefetchFinished() {
+        prefetchRunning--;
+        if (prefetchRunning == 0 && !prefetchQueue.isEmpty())
+            prefetchNextBatch();
+    }
+
+    /**
+     * Creates a translation request that stores its result in the translation cache
+     */
+    private ZeeguuStringRequest createTranslationRequest(final String input, final String inputLanguageCode, final String outputLanguageCode,
+                                                         final Response.Listener<String> listener, Response.ErrorListener errorListener) {
+        // /translate/<from_lang_code>/<to_lang_code>
+        String urlTranslation = apiUrl + "translate/" + inputLanguageCode + "/" + outputLanguageCode +
+                "?session=" + account.getSessionID();
+
+        return new ZeeguuStringRequest(Request.Method.POST,
+                urlTranslation, new Response.Listener<String>() {
+
+            @Override
+            public void onResponse(String response) {
+                if (response != null)
+                    translationCache.put(getTranslationCacheKey(input, inputLanguageCode, outputLanguageCode), response);
+                listener.onResponse(response);
+            }
+
+        }, errorListener) {
 
             @Override
             protected Map<String, String> getParams() {
@@ -251,12 +549,13 @@ public class ZeeguuConnectionManager {
                 return params;
             }
         };
+    }
 
-        // TODO: Set tag and cancel all older translations
-        queue.add(request);
+    private String getTranslationCacheKey(String input, String inputLanguageCode, String outputLanguageCode) {
+        return inputLanguageCode + "/" + outputLanguageCode + "/" + input.trim().toLowerCase(Locale.getDefault());
     }
 
-    public void bookmarkWithContext(final String input, String fromLanguageCode, final String translation, String toLanguageCode,
+    public void bookmarkWithContext(final String input, final String fromLanguageCode, final String translation, final String toLanguageCode,
                                     final String title, final String url, final String context) {
         if (!account.isUserLoggedIn()) {
             callback.showZeeguuLoginDialog(activity.getString(R.string.error_login_first), "");
@@ -275,17 +574,25 @@ public class ZeeguuConnectionManager {
         callback.highlight(input);
 
         // /bookmark_with_context/<from_lang_code>/<term>/<to_lang_code>/<translation>
-        String urlContribution = URL + "bookmark_with_context/" + fromLanguageCode + "/" + Uri.encode(input.trim()) + "/" +
+        String urlContribution = apiUrl + "bookmark_with_context/" + fromLanguageCode + "/" + Uri.encode(input.trim()) + "/" +
                 toLanguageCode + "/" + Uri.encode(translation) + "?session=" + account.getSessionID();
 
-        StringRequest request = new StringRequest(Request.Method.POST,
+        ZeeguuStringRequest request = new ZeeguuStringRequest(Request.Method.POST,
                 urlContribution, new Response.Listener<String>() {
 
             @Override
             public void onResponse(String response) {
                 callback.bookmarkWord(response);
                 callback.displayMessage("<b>" + input + " = " + translation + "</b> saved");
-                getMyWordsFromServer();
+
+                try {
+                    MyWordsItem item = new MyWordsItem(Long.parseLong(response.trim()), input.trim(), translation, context,
+                            fromLanguageCode.toLowerCase(Locale.US), toLanguageCode.toLowerCase(Locale.US));
+                    account.addWord(item, title, url);
+                    scheduleMyWordsReconcile();
+                } catch (NumberFormatException e) {
+                    getMyWordsFromServer();
+                }
             }
 
         }, new Response.ErrorListener() {
@@ -308,7 +615,7 @@ public class ZeeguuConnectionManager {
             }
         };
 
-        queue.add(request);
+        addRequest(request, RequestClass.USER_INITIATED);
     }
 
     private void getUserLanguages() {
@@ -319,9 +626,9 @@ public class ZeeguuConnectionManager {
             return;
         }
 
-        String urlLanguage = URL + "learned_and_native_language" + "?session=" + account.getSessionID();
+        String urlLanguage = apiUrl + "learned_and_native_language" + "?session=" + account.getSessionID();
 
-        JsonObjectRequest request = new JsonObjectRequest(urlLanguage, null,
+        ZeeguuJsonObjectRequest request = new ZeeguuJsonObjectRequest(Request.Method.GET, urlLanguage, null,
                 new Response.Listener<JSONObject>() {
 
                     @Override
@@ -343,7 +650,7 @@ public class ZeeguuConnectionManager {
             }
         });
 
-        queue.add(request);
+        addRequest(request, RequestClass.USER_INITIATED);
     }
 
     public void setLanguageNative(final String languageNative) {
@@ -356,9 +663,9 @@ public class ZeeguuConnectionManager {
             return;
         }
 
-        String urlLanguage = URL + "native_language/" + languageNative + "?session=" + account.getSessionID();
+        String urlLanguage = apiUrl + "native_language/" + languageNative + "?session=" + account.getSessionID();
 
-        StringRequest request = new StringRequest(Request.Method.POST, urlLanguage,
+        ZeeguuStringRequest request = new ZeeguuStringRequest(Request.Method.POST, urlLanguage,
                 new Response.Listener<String>() {
 
                     @Override
@@ -383,7 +690,7 @@ public class ZeeguuConnectionManager {
             }
         });
 
-        queue.add(request);
+        addRequest(request, RequestClass.USER_INITIATED);
     }
 
     public void setLanguageLearning(final String languageLearning) {
@@ -396,9 +703,9 @@ public class ZeeguuConnectionManager {
             return;
         }
 
-        String urlLanguage = URL + "learned_language/" + languageLearning + "?session=" + account.getSessionID();
+        String urlLanguage = apiUrl + "learned_language/" + languageLearning + "?session=" + account.getSessionID();
 
-        StringRequest request = new StringRequest(Request.Method.POST, urlLanguage,
+        ZeeguuStringRequest request = new ZeeguuStringRequest(Request.Method.POST, urlLanguage,
                 new Response.Listener<String>() {
 
                     @Override
@@ -423,10 +730,17 @@ public class ZeeguuConnectionManager {
             }
         });
 
-        queue.add(request);
+        addRequest(request, RequestClass.USER_INITIATED);
     }
 
     public boolean getMyWordsFromServer() {
+        return getMyWordsFromServer(RequestClass.USER_INITIATED);
+    }
+
+    /**
+     * @param requestClass BACKGROUND for the syncs the user did not ask for
+     */
+    private boolean getMyWordsFromServer(RequestClass requestClass) {
         if (!account.isUserInSession()) {
             return false;
         } else if (!isNetworkAvailable()) {
@@ -434,71 +748,118 @@ public class ZeeguuConnectionManager {
             return false;
         }
 
-        String url_session_ID = URL + "bookmarks_by_day/with_context?session=" + account.getSessionID();
+        reconcileHandler.removeCallbacks(reconcileMyWords);
+        reconcilePending = false;
+        final int generation = myWordsRequestGeneration.incrementAndGet();
+        String url_session_ID = apiUrl + "bookmarks_by_day/with_context?session=" + account.getSessionID();
 
-        JsonArrayRequest request = new JsonArrayRequest(url_session_ID, new Response.Listener<JSONArray>() {
+        ZeeguuJsonArrayRequest request = new ZeeguuJsonArrayRequest(url_session_ID, new Response.Listener<JSONArray>() {
 
             @Override
-            public void onResponse(JSONArray allBookmarks) {
-                ArrayList<MyWordsHeader> myWords = account.getMyWords();
-                myWords.clear();
-
+            public void onResponse(final JSONArray allBookmarks) {
                 //ToDo: optimization that not everytime the whole list is sent
-                try {
-                    for (int j = 0; j < allBookmarks.length(); j++) {
-                        JSONObject bookmark = allBookmarks.getJSONObject(j);
-                        MyWordsHeader header = new MyWordsHeader(bookmark.getString("date"));
-                        myWords.add(header);
-                        JSONArray bookmarks = bookmark.getJSONArray("bookmarks");
-                        String title = "";
-
-                        for (int i = 0; i < bookmarks.length(); i++) {
-                            JSONObject translation = bookmarks.getJSONObject(i);
-                            //add title when a new one is
-                            if (!title.equals(translation.getString("title"))) {
-                                title = translation.getString("title");
-                                String url = translation.getString("url");
-                                header.addChild(new MyWordsInfoHeader(title, url));
+                // The new MyWords is built in the background and then replaces the old one at once
+                Thread thread = new Thread(new Runnable() {
+                    public void run() {
+                        try {
+                            ArrayList<MyWordsHeader> myWords = ZeeguuApiJson.parseMyWords(allBookmarks);
+                            synchronized (myWordsResponseLock) {
+                                if (generation != myWordsRequestGeneration.get())
+                                    return; // a newer request was sent, its response replaces this one
+                                account.setMyWords(myWords);
                             }
-                            //add word as entry to list
-                            int id = translation.getInt("id");
-                            String languageFromWord = translation.getString("from");
-                            String languageFrom = translation.getString("from_lang");
-                            String languageToWord = translation.getJSONArray("to").get(0).toString();
-                            String languageTo = translation.getString("to_lang");
-                            String context = translation.getString("context");
-
-                            header.addChild(new MyWordsItem(id, languageFromWord, languageToWord, context, languageFrom, languageTo));
+                            //callback.displayMessage(activity.getString(R.string.successful_mywords_updated));
+                        } catch (JSONException error) {
+                            Log.e("get_my_words", error.toString());
+                            account.dispatchDataChange(DataChangeDispatcher.SESSION); //To stop refreshing action
                         }
                     }
+                });
 
-                    account.setMyWords(myWords);
-                    //callback.displayMessage(activity.getString(R.string.successful_mywords_updated));
-                } catch (JSONException error) {
-                    Log.e("get_my_words", error.toString());
-                    callback.notifyDataChanged(false); //To stop refreshing action
-                }
-
+                thread.start();
             }
         }, new Response.ErrorListener() {
             @Override
             public void onErrorResponse(VolleyError error) {
                 Log.e("get_my_words", error.toString());
-                callback.notifyDataChanged(false); //To stop refreshing action
+                account.dispatchDataChange(DataChangeDispatcher.SESSION); //To stop refreshing action
             }
         });
 
-        queue.add(request);
+        addRequest(request, requestClass);
         return true;
     }
 
-    public void removeBookmarkFromServer(long bookmarkID) {
+    /**
+     * Downloads only the bookmarks of the last days, so that the newest words can be displayed
+     * without waiting for the whole history. The whole history is downloaded afterwards in the
+     * background, so that it does not hold up what the user does with the recent words.
+     */
+    public boolean getRecentMyWordsFromServer(int days) {
+        if (!account.isUserInSession()) {
+            return false;
+        } else if (!isNetworkAvailable()) {
+            account.myWordsLoadFromPhone();
+            return false;
+        }
+
+        String urlBookmarks = apiUrl + "bookmarks_by_day?session=" + account.getSessionID();
+        // The server compares the date in UTC
+        SimpleDateFormat afterDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+        afterDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        final String afterDate = afterDateFormat.format(new Date(System.currentTimeMillis() - days * 24L * 60 * 60 * 1000));
+
+        ZeeguuStringRequest request = new ZeeguuStringRequest(Request.Method.POST, urlBookmarks, new Response.Listener<String>() {
+
+            @Override
+            public void onResponse(String response) {
+                try {
+                    // Only display the recent words if nothing better is known yet
+                    if (account.isMyWordsEmpty())
+                        account.setMyWords(ZeeguuApiJson.parseMyWords(new JSONArray(response)), false);
+                } catch (JSONException error) {
+                    Log.e("get_recent_my_words", error.toString());
+                }
+                getMyWordsFromServer(RequestClass.BACKGROUND);
+            }
+        }, new Response.ErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError error) {
+                Log.e("get_recent_my_words", error.toString());
+                getMyWordsFromServer();
+            }
+        }) {
+
+            @Override
+            protected Map<String, String> getParams() {
+                Map<String, String> params = new HashMap<>();
+                params.put("with_context", "true");
+                params.put("after_date", afterDate);
+                return params;
+            }
+        };
+
+        addRequest(request, RequestClass.USER_INITIATED);
+        return true;
+    }
+
+    /**
+     * Downloads MyWords again after a while, to get the changes made on other devices.
+     * Changes made shortly after each other only lead to one download.
+     */
+    private void scheduleMyWordsReconcile() {
+        reconcilePending = true;
+        reconcileHandler.removeCallbacks(reconcileMyWords);
+        reconcileHandler.postDelayed(reconcileMyWords, MYWORDS_RECONCILE_DELAY);
+    }
+
+    public void removeBookmarkFromServer(final long bookmarkID) {
         if (!account.isUserInSession() || !isNetworkAvailable())
             return;
 
-        String urlRemoveBookmark = URL + "/delete_bookmark/" + bookmarkID + "?session=" + account.getSessionID();
+        String urlRemoveBookmark = apiUrl + "delete_bookmark/" + bookmarkID + "?session=" + account.getSessionID();
 
-        StringRequest request = new StringRequest(Request.Method.POST,
+        ZeeguuStringRequest request = new ZeeguuStringRequest(Request.Method.POST,
                 urlRemoveBookmark, new Response.Listener<String>() {
 
             @Override
@@ -506,9 +867,11 @@ public class ZeeguuConnectionManager {
                 if (response.equals("OK")) {
                     callback.bookmarkWord("0"); //0 means that the bookmark has been deleted
                     callback.displayMessage(activity.getString(R.string.successful_bookmark_deleted));
-                    getMyWordsFromServer();
+                    account.deleteWord(bookmarkID);
+                    scheduleMyWordsReconcile();
                 } else {
                     callback.displayErrorMessage(activity.getString(ch.unibe.R.string.error_bookmark_delete), true);
+                    scheduleMyWordsReconcile(); // brings back a word that was already removed locally
                 }
             }
         }, new Response.ErrorListener() {
@@ -517,11 +880,69 @@ public class ZeeguuConnectionManager {
             public void onErrorResponse(VolleyError error) {
                 callback.displayErrorMessage(activity.getString(R.string.error_bookmark_delete), false);
                 Log.e("remove_bookmark", error.toString());
+                scheduleMyWordsReconcile();
             }
 
         });
 
-        queue.add(request);
+        addRequest(request, RequestClass.USER_INITIATED);
+    }
+
+    /**
+     * Deletes several bookmarks that were already removed locally. The server has no endpoint to
+     * delete several bookmarks at once, so all requests are queued together and run in parallel.
+     * MyWords is only downloaded again after the last one finished. Nothing is sent without a
+     * session or network, so the caller checks both before removing the words locally.
+     */
+    public void removeBookmarksFromServer(final ArrayList<Long> bookmarkIDs) {
+        if (!account.isUserInSession() || !isNetworkAvailable() || bookmarkIDs.isEmpty())
+            return;
+
+        // Number of finished and of failed requests
+        final int[] results = new int[2];
+        final int total = bookmarkIDs.size();
+
+        for (long bookmarkID : bookmarkIDs) {
+            String urlRemoveBookmark = apiUrl + "delete_bookmark/" + bookmarkID + "?session=" + account.getSessionID();
+
+            ZeeguuStringRequest request = new ZeeguuStringRequest(Request.Method.POST,
+                    urlRemoveBookmark, new Response.Listener<String>() {
+
+                @Override
+                public void onResponse(String response) {
+                    onBookmarkRemoved(results, total, response.equals("OK"));
+                }
+            }, new Response.ErrorListener() {
+
+                @Override
+                public void onErrorResponse(VolleyError error) {
+                    Log.e("remove_bookmarks", error.toString());
+                    onBookmarkRemoved(results, total, false);
+                }
+            });
+
+            addRequest(request, RequestClass.USER_INITIATED);
+        }
+    }
+
+    private void onBookmarkRemoved(int[] results, int total, boolean successful) {
+        results[0]++;
+        if (!successful)
+            results[1]++;
+        if (results[0] < total)
+            return;
+
+        if (results[1] == 0) {
+            if (total == 1)
+                callback.displayMessage(activity.getString(R.string.successful_bookmark_deleted));
+            else
+                callback.displayMessage(activity.getString(R.string.successful_bookmarks_deleted, total));
+            scheduleMyWordsReconcile();
+        } else {
+            // Brings back the words that are still on the server
+            callback.displayErrorMessage(activity.getString(R.string.error_bookmarks_delete, results[1], total), false);
+            getMyWordsFromServer();
+        }
     }
 
     public void getDifficultyForText(String language, ArrayList<HashMap<String, String>> texts) {
@@ -530,20 +951,11 @@ public class ZeeguuConnectionManager {
         if (texts.size() == 0)
             return;
 
-        String url_get_difficulty = URL + "get_difficulty_for_text/" + language + "?session=" + account.getSessionID();
+        String url_get_difficulty = apiUrl + "get_difficulty_for_text/" + language + "?session=" + account.getSessionID();
 
         JSONObject json = new JSONObject();
         try {
-            JSONArray jsonTexts = new JSONArray();
-
-            for (HashMap<String, String> text : texts) {
-                JSONObject jsonText = new JSONObject();
-                jsonText.put("content", text.get("content"));
-                jsonText.put("id", text.get("id"));
-                jsonTexts.put(jsonText);
-            }
-
-            json.put("texts", jsonTexts);
+            json = ZeeguuApiJson.createTextsRequest(texts);
             json.put("personalized", "true");
             json.put("rank_boundary", "10000");
         }
@@ -551,7 +963,7 @@ public class ZeeguuConnectionManager {
             Log.e("get_difficulty_json", e.toString());
         }
 
-        JsonObjectRequest request = new JsonObjectRequest(Request.Method.POST,
+        ZeeguuJsonObjectRequest request = new ZeeguuJsonObjectRequest(Request.Method.POST,
                 url_get_difficulty, json, new Response.Listener<JSONObject>() {
 
             @Override
@@ -559,17 +971,8 @@ public class ZeeguuConnectionManager {
                 Thread thread = new Thread(new Runnable() {
                     public void run() {
                         try {
-                            JSONArray jsonArray = response.getJSONArray("difficulties");
-                            ArrayList<HashMap<String, String>> difficulties = new ArrayList<>();
-                            for (int i = 0; i < jsonArray.length(); i++) {
-                                JSONObject json = jsonArray.getJSONObject(i);
-                                HashMap<String, String> difficulty = new HashMap<>(3);
-                                difficulty.put("score_average", json.getString("score_average"));
-                                difficulty.put("score_median", json.getString("score_median"));
-                                difficulty.put("id", json.getString("id"));
-                                difficulties.add(difficulty);
-                            }
-                            callback.setDifficulties(difficulties);
+                            callback.setDifficulties(ZeeguuApiJson.parseList(response, "difficulties",
+                                    "score_average", "score_median", "id"));
                         }
                         catch (JSONException e) {
                             Log.e("get_difficulty_json", e.toString());
@@ -590,7 +993,7 @@ public class ZeeguuConnectionManager {
             }) {
         };
 
-        queue.add(request);
+        addRequest(request, RequestClass.BACKGROUND);
     }
 
     public void getLearnabilityForText(String language, ArrayList<HashMap<String, String>> texts) {
@@ -599,26 +1002,17 @@ public class ZeeguuConnectionManager {
         if (texts.size() == 0)
             return;
 
-        String url_get_learnability = URL + "get_learnability_for_text/" + language + "?session=" + account.getSessionID();
+        String url_get_learnability = apiUrl + "get_learnability_for_text/" + language + "?session=" + account.getSessionID();
 
         JSONObject json = new JSONObject();
         try {
-            JSONArray jsonTexts = new JSONArray();
-
-            for (HashMap<String, String> text : texts) {
-                JSONObject jsonText = new JSONObject();
-                jsonText.put("content", text.get("content"));
-                jsonText.put("id", text.get("id"));
-                jsonTexts.put(jsonText);
-            }
-
-            json.put("texts", jsonTexts);
+            json = ZeeguuApiJson.createTextsRequest(texts);
         }
         catch (JSONException e) {
             Log.e("get_learnability_json", e.toString());
         }
 
-        JsonObjectRequest request = new JsonObjectRequest(Request.Method.POST,
+        ZeeguuJsonObjectRequest request = new ZeeguuJsonObjectRequest(Request.Method.POST,
                 url_get_learnability, json, new Response.Listener<JSONObject>() {
 
             @Override
@@ -626,17 +1020,8 @@ public class ZeeguuConnectionManager {
                 Thread thread = new Thread(new Runnable() {
                     public void run() {
                         try {
-                            JSONArray jsonArray = response.getJSONArray("learnabilities");
-                            ArrayList<HashMap<String, String>> learnabilities = new ArrayList<>();
-                            for (int i = 0; i < jsonArray.length(); i++) {
-                                JSONObject json = jsonArray.getJSONObject(i);
-                                HashMap<String, String> learnability = new HashMap<>(3);
-                                learnability.put("score", json.getString("score"));
-                                learnability.put("count", json.getString("count"));
-                                learnability.put("id", json.getString("id"));
-                                learnabilities.add(learnability);
-                            }
-                            callback.setLearnabilities(learnabilities);
+                            callback.setLearnabilities(ZeeguuApiJson.parseList(response, "learnabilities",
+                                    "score", "count", "id"));
                         }
                         catch (JSONException e) {
                             Log.e("get_learnability_json", e.toString());
@@ -657,36 +1042,96 @@ public class ZeeguuConnectionManager {
         }) {
         };
 
-        queue.add(request);
+        addRequest(request, RequestClass.BACKGROUND);
     }
 
-    public void getContentFromUrl(ArrayList<HashMap<String, String>> urls) {
-        if (!isNetworkAvailable())
+    /**
+     * Gets the contents of the articles, the cached ones are served from the disk (also when
+     * offline) and only the missing ones are requested from the server
+     */
+    public void getContentFromUrl(final ArrayList<HashMap<String, String>> urls) {
+        if (urls.size() == 0)
             return;
+
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                ArrayList<HashMap<String, String>> contents = new ArrayList<>();
+                ArrayList<HashMap<String, String>> missingUrls = new ArrayList<>();
+
+                for (HashMap<String, String> url : urls) {
+                    ContentCache.Entry entry = contentCache.get(url.get("url"));
+                    if (entry != null) {
+                        HashMap<String, String> content = new HashMap<>(3);
+                        content.put("content", entry.getContent());
+                        content.put("image", entry.getImage());
+                        content.put("id", url.get("id"));
+                        contents.add(content);
+                    } else {
+                        missingUrls.add(url);
+                    }
+                }
+
+                if (contents.size() != 0)
+                    callback.setContents(contents);
+                requestContentFromServer(missingUrls, true);
+            }
+        });
+
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Downloads the contents of the articles into the cache, so that they can be opened
+     * later without waiting for the server or while offline
+     */
+    public void prefetchContentFromUrls(final ArrayList<String> urls) {
         if (urls.size() == 0)
             return;
 
-        String url_get_difficulty = URL + "get_content_from_url";
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                ArrayList<HashMap<String, String>> missingUrls = new ArrayList<>();
 
-        JSONObject json = new JSONObject();
-        try {
-            JSONArray jsonTexts = new JSONArray();
+                for (String url : urls) {
+                    if (!contentCache.contains(url)) {
+                        HashMap<String, String> missingUrl = new HashMap<>(2);
+                        missingUrl.put("url", url);
+                        missingUrl.put("id", Integer.toString(missingUrls.size()));
+                        missingUrls.add(missingUrl);
+                    }
+                }
 
-            for (HashMap<String, String> url : urls) {
-                JSONObject jsonText = new JSONObject();
-                jsonText.put("url", url.get("url"));
-                jsonText.put("id", url.get("id"));
-                jsonTexts.put(jsonText);
+                requestContentFromServer(missingUrls, false);
             }
+        });
 
-            json.put("urls", jsonTexts);
-            json.put("timeout", 12);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    private void requestContentFromServer(ArrayList<HashMap<String, String>> urls, final boolean deliverContents) {
+        if (!isNetworkAvailable())
+            return;
+        if (urls.size() == 0)
+            return;
+
+        String url_get_difficulty = apiUrl + "get_content_from_url";
+
+        // To know under which url the returned contents must be cached
+        final HashMap<String, String> urlsById = new HashMap<>(urls.size());
+        for (HashMap<String, String> url : urls)
+            urlsById.put(url.get("id"), url.get("url"));
+
+        JSONObject json = new JSONObject();
+        try {
+            json = ZeeguuApiJson.createUrlsRequest(urls, 12);
         }
         catch (JSONException e) {
             Log.e("get_content_json", e.toString());
         }
 
-        JsonObjectRequest request = new JsonObjectRequest(Request.Method.POST,
+        ZeeguuJsonObjectRequest request = new ZeeguuJsonObjectRequest(Request.Method.POST,
                 url_get_difficulty, json, new Response.Listener<JSONObject>() {
 
             @Override
@@ -694,17 +1139,12 @@ public class ZeeguuConnectionManager {
                 Thread thread = new Thread(new Runnable() {
                     public void run() {
                         try {
-                            JSONArray jsonArray = response.getJSONArray("contents");
-                            ArrayList<HashMap<String, String>> contents = new ArrayList<>();
-                            for (int i = 0; i < jsonArray.length(); i++) {
-                                JSONObject json = jsonArray.getJSONObject(i);
-                                HashMap<String, String> content = new HashMap<>(2);
-                                content.put("content", json.getString("content"));
-                                content.put("image", json.getString("image"));
-                                content.put("id", json.getString("id"));
-                                contents.add(content);
-                            }
-                            callback.setContents(contents);
+                            ArrayList<HashMap<String, String>> contents = ZeeguuApiJson.parseList(response, "contents",
+                                    "content", "image", "id");
+                            for (HashMap<String, String> content : contents)
+                                cacheContent(urlsById.get(content.get("id")), content);
+                            if (deliverContents)
+                                callback.setContents(contents);
                         }
                         catch (JSONException e) {
                             Log.e("get_content_json", e.toString());
@@ -743,15 +1183,25 @@ public class ZeeguuConnectionManager {
             }
         });
 
-        queue.add(request);
+        addRequest(request, RequestClass.BACKGROUND);
+    }
+
+    private void cacheContent(String url, HashMap<String, String> content) {
+        // Empty contents mean that the server could not extract the article
+        if (url == null || content.get("content").equals(""))
+            return;
+
+        try {
+            contentCache.put(url, content.get("content"), content.get("image"));
+        } catch (IOException e) {
+            Log.e("cache_content", e.toString());
+        }
     }
 
     // Boolean Checks
     // TODO: Write tests!
     public boolean isNetworkAvailable() {
-        ConnectivityManager cm = (ConnectivityManager) activity.getSystemService(Context.CONNECTIVITY_SERVICE);
-        NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
-        return activeNetwork != null && activeNetwork.isConnected();
+        return connectivity.isConnected();
     }
 
     private boolean isInputValid(String input) {
@@ -777,4 +1227,86 @@ public class ZeeguuConnectionManager {
     public void setAccount(ZeeguuAccount account) {
         this.account = account;
     }
+
+    /**
+     * The connectivity monitor is shared by the whole app, so its listener only keeps a weak
+     * reference to the connection manager (and its activity). When the manager was collected
+     * without release(), the listener removes itself.
+     */
+    private static class ConnectivityListener implements ConnectivityMonitor.Listener {
+        private final WeakReference<ZeeguuConnectionManager> manager;
+        private final ConnectivityMonitor connectivity;
+
+        ConnectivityListener(ZeeguuConnectionManager manager, ConnectivityMonitor connectivity) {
+            this.manager = new WeakReference<>(manager);
+            this.connectivity = connectivity;
+        }
+
+        @Override
+        public void onConnectivityChanged(ConnectivityMonitor.State state, boolean restored) {
+            ZeeguuConnectionManager manager = this.manager.get();
+            if (manager == null)
+                connectivity.removeListener(this);
+            else if (restored)
+                manager.onConnectivityRestored();
+        }
+    }
+
+    //// Requests with the priority of their request class ////
+
+    private static class ZeeguuStringRequest extends StringRequest implements ClassifiedRequest {
+        private RequestClass requestClass = RequestClass.USER_INITIATED;
+
+        ZeeguuStringRequest(int method, String url, Response.Listener<String> listener,
+                            Response.ErrorListener errorListener) {
+            super(method, url, listener, errorListener);
+        }
+
+        @Override
+        public void setRequestClass(RequestClass requestClass) {
+            this.requestClass = requestClass;
+        }
+
+        @Override
+        public Priority getPriority() {
+            return requestClass.priority;
+        }
+    }
+
+    private static class ZeeguuJsonObjectRequest extends JsonObjectRequest implements ClassifiedRequest {
+        private RequestClass requestClass = RequestClass.USER_INITIATED;
+
+        ZeeguuJsonObjectRequest(int method, String url, JSONObject jsonRequest, Response.Listener<JSONObject> listener,
+                                Response.ErrorListener errorListener) {
+            super(method, url, jsonRequest, listener, errorListener);
+        }
+
+        @Override
+        public void setRequestClass(RequestClass requestClass) {
+            this.requestClass = requestClass;
+        }
+
+        @Override
+        public Priority getPriority() {
+            return requestClass.priority;
+        }
+    }
+
+    private static class ZeeguuJsonArrayRequest extends JsonArrayRequest implements ClassifiedRequest {
+        private RequestClass requestClass = RequestClass.USER_INITIATED;
+
+        ZeeguuJsonArrayRequest(String url, Response.Listener<JSONArray> listener, Response.ErrorListener errorListener) {
+            super(url, listener, errorListener);
+        }
+
+        @Override
+        public void setRequestClass(RequestClass requestClass) {
+            this.requestClass = requestClass;
+        }
+
+        @Override
+        public Priority getPriority() {
+            return requestClass.priority;
+        }
+    }
 }
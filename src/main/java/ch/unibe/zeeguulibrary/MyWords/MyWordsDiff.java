@@ -0,0 +1,124 @@
+package ch.unibe.zeeguulibrary.MyWords;
+
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Difference between two versions of the flattened MyWords list, as a list of insert, remove
+ * and change operations. Rows are matched by their stable id. Is calculated in the background and then
+ * dispatched to the adapter, so that only the rows that changed are bound again.
+ */
+public class MyWordsDiff {
+    private static final int REMOVE = 0;
+    private static final int INSERT = 1;
+    private static final int CHANGE = 2;
+
+    // If more rows changed, it is faster to bind the whole list again
+    private static final float MAX_CHANGED_RATIO = 0.5f;
+
+    // Every operation is {type, position, count}, in the order they must be dispatched
+    private final ArrayList<int[]> operations;
+
+    private MyWordsDiff() {
+        operations = new ArrayList<>();
+    }
+
+    /**
+     * Calculates the operations that turn the old rows into the new rows. Returns null if the
+     * rows were reordered or too many rows changed, in this case the whole list must be updated.
+     */
+    public static MyWordsDiff calculate(List<MyWordsRow> oldRows, List<MyWordsRow> newRows) {
+        HashMap<Long, Integer> oldPositions = new HashMap<>(oldRows.size() * 2);
+        for (int i = 0; i < oldRows.size(); i++)
+            oldPositions.put(oldRows.get(i).getId(), i);
+
+        HashMap<Long, Integer> newPositions = new HashMap<>(newRows.size() * 2);
+        for (int i = 0; i < newRows.size(); i++)
+            newPositions.put(newRows.get(i).getId(), i);
+
+        // Rows that are in both lists must still be in the same order
+        int lastOldPosition = -1;
+        for (MyWordsRow row : newRows) {
+            Integer oldPosition = oldPositions.get(row.getId());
+            if (oldPosition != null) {
+                if (oldPosition < lastOldPosition)
+                    return null;
+                lastOldPosition = oldPosition;
+            }
+        }
+
+        MyWordsDiff diff = new MyWordsDiff();
+        int changedRows = 0;
+
+        // Remove from the end, so that the positions of the remaining removals stay valid
+        for (int i = oldRows.size() - 1; i >= 0; i--) {
+            if (!newPositions.containsKey(oldRows.get(i).getId())) {
+                diff.add(REMOVE, i);
+                changedRows++;
+            }
+        }
+
+        // Insert from the start, at this point all rows before the position are already in place
+        for (int i = 0; i < newRows.size(); i++) {
+            MyWordsRow row = newRows.get(i);
+            Integer oldPosition = oldPositions.get(row.getId());
+            if (oldPosition == null) {
+                diff.add(INSERT, i);
+                changedRows++;
+            } else if (!row.isContentEqual(oldRows.get(oldPosition))) {
+                diff.add(CHANGE, i);
+                changedRows++;
+            }
+        }
+
+        if (changedRows > MAX_CHANGED_RATIO * Math.max(oldRows.size(), newRows.size()) && changedRows > 1)
+            return null;
+        return diff;
+    }
+
+    /**
+     * Adds an operation for one row, merges it with the previous operation if possible
+     */
+    private void add(int type, int position) {
+        if (!operations.isEmpty()) {
+            int[] last = operations.get(operations.size() - 1);
+            if (last[0] == type) {
+                if (type == REMOVE && position == last[1] - 1) {
+                    last[1] = position;
+                    last[2]++;
+                    return;
+                } else if (type != REMOVE && position == last[1] + last[2]) {
+                    last[2]++;
+                    return;
+                }
+            }
+        }
+        operations.add(new int[]{type, position, 1});
+    }
+
+    /**
+     * Must be called after the adapter switched to the new rows
+     */
+    public void dispatchUpdatesTo(RecyclerView.Adapter adapter) {
+        for (int[] operation : operations) {
+            switch (operation[0]) {
+                case REMOVE:
+                    adapter.notifyItemRangeRemoved(operation[1], operation[2]);
+                    break;
+                case INSERT:
+                    adapter.notifyItemRangeInserted(operation[1], operation[2]);
+                    break;
+                case CHANGE:
+                    adapter.notifyItemRangeChanged(operation[1], operation[2]);
+                    break;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+}
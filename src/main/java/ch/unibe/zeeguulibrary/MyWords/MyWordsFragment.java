@@ -3,9 +3,13 @@ package ch.unibe.zeeguulibrary.MyWords;
 import android.app.Activity;
 import android.app.Fragment;
 import android.os.Bundle;
+import android.support.v4.view.MenuItemCompat;
 import android.support.v4.widget.SwipeRefreshLayout;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.view.ActionMode;
+import android.support.v7.widget.SearchView;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -13,13 +17,13 @@ import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
 import android.webkit.URLUtil;
-import android.widget.AdapterView;
-import android.widget.ExpandableListView;
 import android.widget.TextView;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 
 import ch.unibe.R;
+import ch.unibe.zeeguulibrary.Core.ZeeguuAccount;
 import ch.unibe.zeeguulibrary.Core.ZeeguuConnectionManager;
 
 /**
@@ -30,8 +34,8 @@ public class MyWordsFragment extends Fragment {
     private ZeeguuConnectionManager connectionManager;
 
     //Listview variables
-    private MyWordsExpandableAdapter adapter;
-    private ExpandableListView myWordsListView;
+    private MyWordsRecyclerAdapter adapter;
+    private RecyclerView myWordsListView;
     private SwipeRefreshLayout swipeLayout;
 
     private boolean listviewExpanded;
@@ -40,9 +44,18 @@ public class MyWordsFragment extends Fragment {
     private ActionMode mode;
     private MenuItem menuItemExpandCollapse;
     private MenuItem menuItemRefresh;
+    private MenuItem menuItemSearch;
 
     private TextView emptyText;
 
+    // Query of the search, searched again when MyWords changes. Only the latest search is displayed.
+    private String searchQuery;
+    private int searchGeneration;
+
+    // Infinite scrolling, the faster the user scrolls, the earlier the next days are loaded
+    private static final int MIN_PREFETCH_ROWS = 10;
+    private static final int PREFETCH_FRAMES = 30;
+
     public interface ZeeguuFragmentMyWordsCallbacks {
         ZeeguuConnectionManager getZeeguuConnectionManager();
 
@@ -63,39 +76,29 @@ public class MyWordsFragment extends Fragment {
 
         //create listview for myWordsListView and customize it
         emptyText = (TextView) view.findViewById(R.id.mywords_empty);
-        myWordsListView = (ExpandableListView) view.findViewById(R.id.mywords_listview);
+        myWordsListView = (RecyclerView) view.findViewById(R.id.mywords_listview);
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(getActivity());
+        myWordsListView.setLayoutManager(layoutManager);
 
-        //open actionbar menu for deleting the items when longclick
-        myWordsListView.setOnItemLongClickListener(new AdapterView.OnItemLongClickListener() {
+        //load older days before the user reaches the end of the list
+        myWordsListView.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
-            public boolean onItemLongClick(AdapterView<?> parent, View view, int position, long id) {
-                if (id != 0) {
-                    AppCompatActivity activity = (AppCompatActivity) getActivity();
-                    mode = activity.startSupportActionMode(new ActionBarCallBack(id, view));
-                    return true;
-                }
-                return false;
-            }
-        });
-
-        //when clicked somewhere else, close the longclick dialog
-        myWordsListView.setOnChildClickListener(new ExpandableListView.OnChildClickListener() {
-            @Override
-            public boolean onChildClick(ExpandableListView parent, View view, int groupPosition, int childPosition, long id) {
-                if (id != 0) {
-                    if (mode != null)
-                        mode.finish();
-                    return true;
-                } else {
-                    MyWordsInfoHeader header = (MyWordsInfoHeader) adapter.getChild(groupPosition, childPosition);
-
-                    if (URLUtil.isValidUrl(header.getUrl())) {
-                        header.setClicked();
-                        callback.openUrlInBrowser(header.getUrl());
-                        return true;
-                    }
-                    return false;
-                }
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0 || adapter == null || !adapter.hasMoreDays())
+                    return;
+
+                int firstVisible = layoutManager.findFirstVisibleItemPosition();
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible == RecyclerView.NO_POSITION)
+                    return;
+
+                // Rows scrolled per frame at the current speed
+                int visibleRows = Math.max(1, lastVisible - firstVisible + 1);
+                float rowHeight = (float) recyclerView.getHeight() / visibleRows;
+                int prefetchRows = Math.max(MIN_PREFETCH_ROWS, (int) (dy / rowHeight * PREFETCH_FRAMES));
+
+                if (adapter.getItemCount() - lastVisible <= prefetchRows)
+                    adapter.showMoreDays();
             }
         });
 
@@ -117,14 +120,48 @@ public class MyWordsFragment extends Fragment {
         callback = (ZeeguuFragmentMyWordsCallbacks) getActivity();
         connectionManager = callback.getZeeguuConnectionManager();
 
-        ArrayList<MyWordsHeader> list = connectionManager.getAccount().getMyWords();
-        adapter = new MyWordsExpandableAdapter(getActivity(), list);
-        myWordsListView.setAdapter(adapter);
+        adapter = new MyWordsRecyclerAdapter(getActivity(), connectionManager.getAccount().getMyWords());
+        adapter.setListener(new MyWordsRecyclerAdapter.MyWordsAdapterListener() {
+            //while words are selected, a click adds the word to the selection
+            @Override
+            public void onRowClick(MyWordsRow row, int position) {
+                if (row.getType() == MyWordsRow.TYPE_ITEM) {
+                    if (mode != null)
+                        toggleSelection(position);
+                } else {
+                    MyWordsInfoHeader header = (MyWordsInfoHeader) row.getItem();
 
-        myWordsListView.setEmptyView(emptyText);
-        if (adapter.isEmpty())
-            setEmptyViewText();
+                    if (URLUtil.isValidUrl(header.getUrl())) {
+                        adapter.setInfoHeaderClicked(header.getItemId());
+                        callback.openUrlInBrowser(header.getUrl());
+                    }
+                }
+            }
 
+            //open actionbar menu for deleting the items when longclick
+            @Override
+            public boolean onRowLongClick(MyWordsRow row, int position) {
+                if (row.getType() == MyWordsRow.TYPE_ITEM) {
+                    if (mode == null) {
+                        AppCompatActivity activity = (AppCompatActivity) getActivity();
+                        mode = activity.startSupportActionMode(new ActionBarCallBack());
+                        if (mode == null)
+                            return false;
+                    }
+                    toggleSelection(position);
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public void onRowsUpdated() {
+                updateEmptyView();
+            }
+        });
+        myWordsListView.setAdapter(adapter);
+
+        updateEmptyView();
         expandMyWordsList();
     }
 
@@ -146,6 +183,36 @@ public class MyWordsFragment extends Fragment {
 
         menuItemExpandCollapse = menu.findItem(R.id.listview_expand_collapse);
         menuItemRefresh = menu.findItem(R.id.listview_refresh);
+        menuItemSearch = menu.findItem(R.id.listview_search);
+
+        SearchView searchView = (SearchView) MenuItemCompat.getActionView(menuItemSearch);
+        searchView.setQueryHint(getString(R.string.mywords_search));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                searchMyWords(query);
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String query) {
+                searchMyWords(query);
+                return true;
+            }
+        });
+        MenuItemCompat.setOnActionExpandListener(menuItemSearch, new MenuItemCompat.OnActionExpandListener() {
+            @Override
+            public boolean onMenuItemActionExpand(MenuItem item) {
+                return true;
+            }
+
+            @Override
+            public boolean onMenuItemActionCollapse(MenuItem item) {
+                searchMyWords("");
+                return true;
+            }
+        });
+
         updateMenuItems();
     }
 
@@ -173,10 +240,9 @@ public class MyWordsFragment extends Fragment {
         super.onResume();
 
         if (adapter != null) {
-            adapter.notifyDataSetChanged();
-
-            if (adapter.isEmpty())
-                setEmptyViewText();
+            adapter.setMyWords(connectionManager.getAccount().getMyWords());
+            if (adapter.isFiltered())
+                searchMyWords(searchQuery);
         }
     }
 
@@ -192,8 +258,9 @@ public class MyWordsFragment extends Fragment {
     public void notifyDataSetChanged(boolean myWordsChanged) {
         //update wordlist if changes happend
         if (myWordsChanged && adapter != null) {
-            adapter.notifyDataSetChanged();
-            expandMyWordsList();
+            adapter.setMyWords(connectionManager.getAccount().getMyWords());
+            if (adapter.isFiltered())
+                searchMyWords(searchQuery);
         }
         //turn of refreshing parameters
         listviewRefreshing = false;
@@ -201,7 +268,7 @@ public class MyWordsFragment extends Fragment {
         if (isAdded()) {
             swipeLayout.setRefreshing(false);
             updateMenuItems();
-            setEmptyViewText();
+            updateEmptyView();
         }
     }
 
@@ -209,26 +276,72 @@ public class MyWordsFragment extends Fragment {
 
     private void expandMyWordsList() {
         listviewExpanded = true;
-        for (int i = 0; i < adapter.getGroupCount(); i++)
-            myWordsListView.expandGroup(i);
+        adapter.expandAll();
 
         updateMenuItems();
     }
 
     private void collapseMyWordsList() {
         listviewExpanded = false;
-        for (int i = 0; i < adapter.getGroupCount(); i++)
-            myWordsListView.collapseGroup(i);
+        adapter.collapseAll();
 
         updateMenuItems();
     }
 
+    /**
+     * Filters the list as the user types, the matching words are found with the search index
+     * in the background
+     */
+    private void searchMyWords(final String query) {
+        searchQuery = query;
+        final int generation = ++searchGeneration;
+        if (adapter == null)
+            return;
+
+        if (query == null || query.trim().equals("")) {
+            adapter.setFilter(null);
+            return;
+        }
+
+        final Activity activity = getActivity();
+        final ZeeguuAccount account = connectionManager.getAccount();
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                final HashSet<Long> filter = account.searchMyWords(query);
+
+                activity.runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == searchGeneration && adapter != null)
+                            adapter.setFilter(filter);
+                    }
+                });
+            }
+        });
+
+        thread.start();
+    }
+
+    /**
+     * Selects or deselects a word, the action mode is closed when nothing is selected anymore
+     */
+    private void toggleSelection(int position) {
+        adapter.toggleSelection(position);
+
+        int count = adapter.getSelectedCount();
+        if (count == 0)
+            mode.finish();
+        else
+            mode.setTitle(getString(R.string.mywords_selected, count));
+    }
+
     private void updateMenuItems() {
         if (menuItemExpandCollapse != null && menuItemRefresh != null) {
             boolean showListMenus = connectionManager.getAccount().isUserInSession();
 
             menuItemRefresh.setVisible(showListMenus);
             menuItemExpandCollapse.setVisible(showListMenus);
+            menuItemSearch.setVisible(showListMenus);
 
             if (listviewExpanded)
                 menuItemExpandCollapse.setTitle(R.string.mywords_collapse)
@@ -251,8 +364,24 @@ public class MyWordsFragment extends Fragment {
         }
     }
 
+    private void updateEmptyView() {
+        if (adapter == null)
+            return;
+
+        if (adapter.getItemCount() == 0) {
+            setEmptyViewText();
+            emptyText.setVisibility(View.VISIBLE);
+            myWordsListView.setVisibility(View.GONE);
+        } else {
+            emptyText.setVisibility(View.GONE);
+            myWordsListView.setVisibility(View.VISIBLE);
+        }
+    }
+
     private void setEmptyViewText() {
-        if (connectionManager.getAccount().isUserInSession())
+        if (adapter != null && adapter.isFiltered())
+            emptyText.setText(getString(R.string.mywords_search_empty));
+        else if (connectionManager.getAccount().isUserInSession())
             emptyText.setText(getString(R.string.mywords_empty));
         else if (connectionManager.isNetworkAvailable())
             emptyText.setText(getString(R.string.login_zeeguu_sign_in_message));
@@ -261,23 +390,27 @@ public class MyWordsFragment extends Fragment {
     }
 
     private class ActionBarCallBack implements ActionMode.Callback {
-        private long id;
-        private View lastSelectedView;
-
-        public ActionBarCallBack(long id, View view) {
-            this.id = id;
-            lastSelectedView = view;
-        }
 
         @Override
         public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
             if (item.getItemId() == R.id.item_delete) {
-                if (connectionManager.getAccount().deleteWord(id) != null) {
-                    connectionManager.removeBookmarkFromServer(id);
-                    callback.displayMessage(getString(R.string.successful_bookmark_deleted));
-                } else {
-                    callback.displayMessage(getString(R.string.error_bookmark_delete));
+                // The words are only removed locally when the server can delete them as well,
+                // otherwise they would come back with the next download. The selection is kept
+                // to try again.
+                if (!connectionManager.getAccount().isUserInSession()) {
+                    callback.displayMessage(getString(R.string.error_login_first));
+                    return true;
+                } else if (!connectionManager.isNetworkAvailable()) {
+                    callback.displayMessage(getString(R.string.error_no_internet_connection));
+                    return true;
                 }
+
+                // All words are removed locally at once and then deleted on the server together
+                ArrayList<Long> ids = connectionManager.getAccount().deleteWords(adapter.getSelectedIds());
+                if (!ids.isEmpty())
+                    connectionManager.removeBookmarksFromServer(ids);
+                else
+                    callback.displayMessage(getString(R.string.error_bookmark_delete));
                 mode.finish();
 
             }
@@ -286,17 +419,14 @@ public class MyWordsFragment extends Fragment {
 
         @Override
         public boolean onCreateActionMode(ActionMode mode, Menu menu) {
-            lastSelectedView.setSelected(true);
             mode.getMenuInflater().inflate(R.menu.menu_mywords_actionmode, menu);
             return true;
         }
 
         @Override
         public void onDestroyActionMode(ActionMode mode) {
-            if (lastSelectedView != null) {
-                lastSelectedView.setSelected(false);
-                lastSelectedView = null;
-            }
+            adapter.clearSelection();
+            MyWordsFragment.this.mode = null;
         }
 
         @Override
@@ -304,4 +434,4 @@ public class MyWordsFragment extends Fragment {
             return false;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,361 @@
+package ch.unibe.zeeguulibrary.MyWords;
+
+import android.app.Activity;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Adapter that displays MyWords in a RecyclerView. The headers and their children are flattened
+ * into one list of prepared rows in the background, on every update only the rows that changed
+ * are bound again.
+ */
+public class MyWordsRecyclerAdapter extends RecyclerView.Adapter<MyWordsRecyclerAdapter.RowViewHolder> {
+
+    private final Activity activity;
+    private final LayoutInflater inflater;
+    private MyWordsAdapterListener listener;
+
+    private List<MyWordsHeader> headers;
+    private ArrayList<MyWordsRow> rows;
+    private HashSet<Long> collapsedHeaders;
+
+    // Ids of the words that match the search, null if there is no search
+    private HashSet<Long> filter;
+
+    // Ids of the words that are selected to be deleted
+    private HashSet<Long> selectedIds;
+
+    // Ids of the info headers whose article was opened, MyWords itself is not changed
+    private HashSet<Long> clickedInfoHeaders;
+
+    // Number of days that are displayed, more are added while scrolling down
+    private static final int DAYS_PER_PAGE = 7;
+    private int displayedDays = DAYS_PER_PAGE;
+    // Set until the rows of the added days are displayed, so that scrolling meanwhile adds no more
+    private boolean loadingDays;
+
+    // Only the result of the latest update is applied
+    private int updateGeneration;
+
+    /**
+     * Listener for clicks on the rows and for finished updates
+     */
+    public interface MyWordsAdapterListener {
+        void onRowClick(MyWordsRow row, int position);
+
+        boolean onRowLongClick(MyWordsRow row, int position);
+
+        void onRowsUpdated();
+    }
+
+    public MyWordsRecyclerAdapter(Activity activity, List<MyWordsHeader> headers) {
+        this.activity = activity;
+        this.inflater = activity.getLayoutInflater();
+        this.headers = headers;
+        this.collapsedHeaders = new HashSet<>();
+        this.selectedIds = new HashSet<>();
+        this.clickedInfoHeaders = new HashSet<>();
+        this.rows = new ArrayList<>();
+
+        // Lets the RecyclerView keep and animate the rows across updates
+        setHasStableIds(true);
+    }
+
+    /**
+     * Updates the list with the new headers. The rows are prepared and the difference to the
+     * displayed rows is calculated in the background, afterwards only the changed rows are notified.
+     */
+    public void setMyWords(List<MyWordsHeader> headers) {
+        this.headers = headers;
+
+        // MyWords does not change anymore once it is set, so the rows can be prepared in the
+        // background. Search results are always displayed completely, otherwise only the displayed days.
+        final HashSet<Long> filter = this.filter;
+        int days = filter == null ? Math.min(displayedDays, headers.size()) : headers.size();
+        final List<MyWordsHeader> displayedHeaders = headers.subList(0, days);
+        final boolean[] expanded = new boolean[days];
+        for (int i = 0; i < days; i++) {
+            // All search results are displayed
+            expanded[i] = filter != null || !collapsedHeaders.contains(displayedHeaders.get(i).getId());
+        }
+
+        final HashSet<Long> clicked = new HashSet<>(clickedInfoHeaders);
+        final ArrayList<MyWordsRow> oldRows = rows;
+        final int generation = ++updateGeneration;
+
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                final ArrayList<MyWordsRow> newRows = filter == null
+                        ? buildRows(displayedHeaders, expanded, clicked)
+                        : buildFilteredRows(displayedHeaders, filter, clicked);
+                final MyWordsDiff diff = MyWordsDiff.calculate(oldRows, newRows);
+
+                activity.runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != updateGeneration)
+                            return; // a newer update is already running
+
+                        rows = newRows;
+                        loadingDays = false;
+                        if (diff == null)
+                            notifyDataSetChanged();
+                        else
+                            diff.dispatchUpdatesTo(MyWordsRecyclerAdapter.this);
+
+                        if (listener != null)
+                            listener.onRowsUpdated();
+                    }
+                });
+            }
+        });
+
+        thread.start();
+    }
+
+    /**
+     * Flattens the headers into prepared rows, the children of collapsed headers are left out
+     */
+    private static ArrayList<MyWordsRow> buildRows(List<MyWordsHeader> headers, boolean[] expanded,
+                                                   HashSet<Long> clicked) {
+        ArrayList<MyWordsRow> rows = new ArrayList<>();
+
+        for (int i = 0; i < headers.size(); i++) {
+            MyWordsHeader header = headers.get(i);
+            rows.add(MyWordsRow.createHeaderRow(header, expanded[i]));
+
+            if (expanded[i])
+                for (Item item : header.getChildren())
+                    rows.add(MyWordsRow.createChildRow(header, item, clicked.contains(item.getItemId())));
+        }
+
+        return rows;
+    }
+
+    /**
+     * Only displays the words that match the search, together with their headers
+     */
+    private static ArrayList<MyWordsRow> buildFilteredRows(List<MyWordsHeader> headers, HashSet<Long> filter,
+                                                           HashSet<Long> clicked) {
+        ArrayList<MyWordsRow> rows = new ArrayList<>();
+
+        for (int i = 0; i < headers.size(); i++) {
+            MyWordsHeader header = headers.get(i);
+            MyWordsRow headerRow = null;
+            MyWordsRow infoHeaderRow = null;
+
+            for (Item item : header.getChildren()) {
+                if (!(item instanceof MyWordsItem)) {
+                    infoHeaderRow = MyWordsRow.createChildRow(header, item, clicked.contains(item.getItemId()));
+                    continue;
+                } else if (!filter.contains(item.getItemId())) {
+                    continue;
+                }
+
+                // The headers are only added if one of their words matches
+                if (headerRow == null) {
+                    headerRow = MyWordsRow.createHeaderRow(header, true);
+                    rows.add(headerRow);
+                }
+                if (infoHeaderRow != null) {
+                    rows.add(infoHeaderRow);
+                    infoHeaderRow = null;
+                }
+                rows.add(MyWordsRow.createChildRow(header, item, false));
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Filters the list by the ids of the words that match a search, null displays all words
+     */
+    public void setFilter(HashSet<Long> filter) {
+        this.filter = filter;
+        setMyWords(headers);
+    }
+
+    public boolean isFiltered() {
+        return filter != null;
+    }
+
+    //// Paging ////
+
+    /**
+     * Whether there are older days that are not displayed yet
+     */
+    public boolean hasMoreDays() {
+        return filter == null && displayedDays < headers.size();
+    }
+
+    /**
+     * Adds the next older days to the end of the list
+     */
+    public void showMoreDays() {
+        if (loadingDays || !hasMoreDays())
+            return;
+
+        loadingDays = true;
+        displayedDays += DAYS_PER_PAGE;
+        setMyWords(headers);
+    }
+
+    //// Expanding and collapsing ////
+
+    public void toggleHeader(MyWordsHeader header) {
+        if (!collapsedHeaders.remove(header.getId()))
+            collapsedHeaders.add(header.getId());
+        setMyWords(headers);
+    }
+
+    public void expandAll() {
+        collapsedHeaders.clear();
+        setMyWords(headers);
+    }
+
+    public void collapseAll() {
+        for (MyWordsHeader header : headers)
+            collapsedHeaders.add(header.getId());
+        setMyWords(headers);
+    }
+
+    /**
+     * Displays the info header as a visited link
+     */
+    public void setInfoHeaderClicked(long id) {
+        if (clickedInfoHeaders.add(id))
+            setMyWords(headers);
+    }
+
+    //// Selection ////
+
+    /**
+     * Selects the word at this position or removes it from the selection
+     */
+    public void toggleSelection(int position) {
+        if (position == RecyclerView.NO_POSITION)
+            return;
+
+        MyWordsRow row = rows.get(position);
+        if (row.getType() != MyWordsRow.TYPE_ITEM)
+            return;
+
+        if (!selectedIds.remove(row.getId()))
+            selectedIds.add(row.getId());
+        notifyItemChanged(position);
+    }
+
+    public void clearSelection() {
+        if (selectedIds.isEmpty())
+            return;
+
+        for (int position = 0; position < rows.size(); position++)
+            if (selectedIds.contains(rows.get(position).getId()))
+                notifyItemChanged(position);
+        selectedIds.clear();
+    }
+
+    /**
+     * Returns a copy of the ids of the selected words
+     */
+    public ArrayList<Long> getSelectedIds() {
+        return new ArrayList<>(selectedIds);
+    }
+
+    public int getSelectedCount() {
+        return selectedIds.size();
+    }
+
+    //// RecyclerView.Adapter ////
+
+    @Override
+    public int getItemViewType(int position) {
+        return rows.get(position).getType();
+    }
+
+    @Override
+    public RowViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        switch (viewType) {
+            case MyWordsRow.TYPE_HEADER:
+                return new RowViewHolder(MyWordsViews.inflateHeader(inflater, parent));
+            case MyWordsRow.TYPE_INFO_HEADER:
+                return new RowViewHolder(MyWordsViews.inflateInfoHeader(inflater, parent));
+            default:
+                return new RowViewHolder(MyWordsViews.inflateItem(inflater, parent));
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(RowViewHolder holder, int position) {
+        MyWordsRow row = rows.get(position);
+        holder.row = row;
+        holder.itemView.setSelected(selectedIds.contains(row.getId()));
+
+        switch (row.getType()) {
+            case MyWordsRow.TYPE_HEADER:
+                MyWordsViews.bindHeader((MyWordsViews.HeaderViewHolder) holder.viewHolder, row);
+                break;
+            case MyWordsRow.TYPE_INFO_HEADER:
+                MyWordsViews.bindInfoHeader((MyWordsViews.InfoHeaderViewHolder) holder.viewHolder, row);
+                break;
+            default:
+                MyWordsViews.bindItem((MyWordsViews.ItemViewHolder) holder.viewHolder, row);
+                break;
+        }
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return rows.get(position).getId();
+    }
+
+    @Override
+    public int getItemCount() {
+        return rows.size();
+    }
+
+    public MyWordsRow getRow(int position) {
+        return rows.get(position);
+    }
+
+    public void setListener(MyWordsAdapterListener listener) {
+        this.listener = listener;
+    }
+
+    //// View holder ////
+
+    class RowViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener, View.OnLongClickListener {
+        final Object viewHolder;
+        MyWordsRow row;
+
+        RowViewHolder(View itemView) {
+            super(itemView);
+            viewHolder = itemView.getTag();
+            itemView.setOnClickListener(this);
+            itemView.setOnLongClickListener(this);
+        }
+
+        @Override
+        public void onClick(View view) {
+            if (row == null)
+                return;
+
+            if (row.getType() == MyWordsRow.TYPE_HEADER)
+                toggleHeader(row.getHeader());
+            else if (listener != null)
+                listener.onRowClick(row, getAdapterPosition());
+        }
+
+        @Override
+        public boolean onLongClick(View view) {
+            return row != null && listener != null && listener.onRowLongClick(row, getAdapterPosition());
+        }
+    }
+}
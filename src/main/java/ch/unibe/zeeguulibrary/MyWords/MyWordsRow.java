@@ -0,0 +1,169 @@
+package ch.unibe.zeeguulibrary.MyWords;
+
+import android.graphics.Color;
+import android.text.Html;
+import android.view.View;
+import android.webkit.URLUtil;
+
+import ch.unibe.R;
+
+/**
+ * One row of the flattened MyWords list: a day header, an info header or a word. Everything that
+ * is displayed is computed when the row is created (in the background), so that binding the row
+ * to a view only assigns the prepared values.
+ */
+public class MyWordsRow {
+    public static final int TYPE_HEADER = 0;
+    public static final int TYPE_INFO_HEADER = 1;
+    public static final int TYPE_ITEM = 2;
+
+    private static final int MAX_CONTEXT_LENGTH = 300;
+    private static final int COLOR_LINK = Color.parseColor("#0000FF");
+    private static final int COLOR_LINK_VISITED = Color.parseColor("#800080");
+
+    private final int type;
+    private final long id;
+    private final MyWordsHeader header;
+    private final Item item;
+    private final boolean expanded;
+
+    // Prepared content
+    private final CharSequence title;
+    private final CharSequence subtitle;
+    private final CharSequence context;
+    private final int contextVisibility;
+    private final int leftIcon;
+    private final int rightIcon;
+    private final boolean link;
+    private final int textColor;
+
+    private MyWordsRow(int type, long id, MyWordsHeader header, Item item, boolean expanded,
+                       CharSequence title, CharSequence subtitle, CharSequence context, int leftIcon, int rightIcon,
+                       boolean link, int textColor) {
+        this.type = type;
+        this.id = id;
+        this.header = header;
+        this.item = item;
+        this.expanded = expanded;
+        this.title = title;
+        this.subtitle = subtitle;
+        this.context = context;
+        this.contextVisibility = context.length() == 0 ? View.GONE : View.VISIBLE;
+        this.leftIcon = leftIcon;
+        this.rightIcon = rightIcon;
+        this.link = link;
+        this.textColor = textColor;
+    }
+
+    public static MyWordsRow createHeaderRow(MyWordsHeader header, boolean expanded) {
+        int statusIcon = expanded ? R.drawable.ic_action_close_list_holo_light : R.drawable.ic_action_open_list_holo_light;
+        return new MyWordsRow(TYPE_HEADER, header.getId(), header, null, expanded,
+                header.getName(), "", "", 0, statusIcon, false, 0);
+    }
+
+    /**
+     * @param clicked whether the article of an info header was opened, it is shown as a visited link
+     */
+    public static MyWordsRow createChildRow(MyWordsHeader header, Item item, boolean clicked) {
+        if (item instanceof MyWordsItem) {
+            MyWordsItem word = (MyWordsItem) item;
+            return new MyWordsRow(TYPE_ITEM, item.getItemId(), header, item, false,
+                    valueOf(word.getLanguageFromWord()), valueOf(word.getLanguageToWord()), shortenContext(word.getContext()),
+                    MyWordsViews.getFlagResource(word.getLanguageFrom()), MyWordsViews.getFlagResource(word.getLanguageTo()),
+                    false, 0);
+        } else {
+            MyWordsInfoHeader infoHeader = (MyWordsInfoHeader) item;
+            boolean link = URLUtil.isValidUrl(infoHeader.getUrl());
+            CharSequence title = link ? Html.fromHtml("<u>" + infoHeader.getUrl() + "</u>") : valueOf(infoHeader.getName());
+            int textColor = clicked ? COLOR_LINK_VISITED : COLOR_LINK;
+            return new MyWordsRow(TYPE_INFO_HEADER, item.getItemId(), header, item, false,
+                    title, "", "", 0, 0, link, textColor);
+        }
+    }
+
+    private static String valueOf(String string) {
+        return string == null ? "" : string;
+    }
+
+    private static String shortenContext(String context) {
+        if (context == null)
+            return "";
+
+        context = context.trim();
+        if (context.length() > MAX_CONTEXT_LENGTH)
+            return context.substring(0, MAX_CONTEXT_LENGTH).trim() + "\u2026";
+        return context;
+    }
+
+    /**
+     * Stable id of the row, rows with the same id represent the same entry, even if they were
+     * created from different downloads of MyWords
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Whether the row would look the same as the other row
+     */
+    public boolean isContentEqual(MyWordsRow other) {
+        return type == other.type
+                && expanded == other.expanded
+                && leftIcon == other.leftIcon
+                && rightIcon == other.rightIcon
+                && link == other.link
+                && textColor == other.textColor
+                && title.toString().equals(other.title.toString())
+                && subtitle.toString().equals(other.subtitle.toString())
+                && context.toString().equals(other.context.toString());
+    }
+
+    // Getters
+    public int getType() {
+        return type;
+    }
+
+    public MyWordsHeader getHeader() {
+        return header;
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    public boolean isExpanded() {
+        return expanded;
+    }
+
+    public CharSequence getTitle() {
+        return title;
+    }
+
+    public CharSequence getSubtitle() {
+        return subtitle;
+    }
+
+    public CharSequence getContext() {
+        return context;
+    }
+
+    public int getContextVisibility() {
+        return contextVisibility;
+    }
+
+    public int getLeftIcon() {
+        return leftIcon;
+    }
+
+    public int getRightIcon() {
+        return rightIcon;
+    }
+
+    public boolean isLink() {
+        return link;
+    }
+
+    public int getTextColor() {
+        return textColor;
+    }
+}
@@ -0,0 +1,137 @@
+package ch.unibe.zeeguulibrary.MyWords;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import ch.unibe.R;
+
+/**
+ * Creates and fills the views of the MyWords list. The headers and items themselves only hold
+ * the data and do not depend on Android.
+ */
+public class MyWordsViews {
+
+    //// Headers ////
+
+    /**
+     * Creates a new view for a header, the content is set with bindHeader
+     */
+    public static View inflateHeader(LayoutInflater inflater, ViewGroup parent) {
+        View view = inflater.inflate(R.layout.mywords_header, parent, false);
+
+        HeaderViewHolder holder = new HeaderViewHolder();
+        holder.header_title = (TextView) view.findViewById(R.id.txtHeader);
+        holder.group_status = (ImageView) view.findViewById(R.id.ic_action_group_status);
+
+        view.setTag(holder);
+        return view;
+    }
+
+    /**
+     * Displays a prepared row, the row already contains everything that needs to be displayed
+     */
+    static void bindHeader(HeaderViewHolder holder, MyWordsRow row) {
+        holder.header_title.setText(row.getTitle());
+        holder.group_status.setImageResource(row.getRightIcon());
+    }
+
+    //// Children ////
+
+    /**
+     * Creates a new view for an info header, the content is set with bindInfoHeader
+     */
+    public static View inflateInfoHeader(LayoutInflater inflater, ViewGroup parent) {
+        View view = inflater.inflate(R.layout.mywords_info_header, parent, false);
+
+        InfoHeaderViewHolder holder = new InfoHeaderViewHolder();
+        holder.header_title = (TextView) view.findViewById(R.id.txtInfoHeader);
+
+        view.setTag(holder);
+        return view;
+    }
+
+    static void bindInfoHeader(InfoHeaderViewHolder holder, MyWordsRow row) {
+        holder.header_title.setText(row.getTitle());
+        if (row.isLink())
+            holder.header_title.setTextColor(row.getTextColor());
+    }
+
+    /**
+     * Creates a new view for an item, the content is set with bindItem
+     */
+    public static View inflateItem(LayoutInflater inflater, ViewGroup parent) {
+        View view = inflater.inflate(R.layout.mywords_item, parent, false);
+
+        ItemViewHolder holder = new ItemViewHolder();
+
+        holder.languageFromWord = (TextView) view.findViewById(R.id.mywords_language_from_word);
+        holder.languageToWord = (TextView) view.findViewById(R.id.mywords_language_to_word);
+        holder.context = (TextView) view.findViewById(R.id.mywords_context);
+        holder.languageFromFlag = (ImageView) view.findViewById(R.id.flag_language_from);
+        holder.languageToFlag = (ImageView) view.findViewById(R.id.flag_language_to);
+
+        view.setTag(holder);
+        return view;
+    }
+
+    static void bindItem(ItemViewHolder holder, MyWordsRow row) {
+        holder.languageFromWord.setText(row.getTitle());
+        holder.languageToWord.setText(row.getSubtitle());
+        holder.context.setText(row.getContext());
+        holder.context.setVisibility(row.getContextVisibility());
+        holder.languageFromFlag.setImageResource(row.getLeftIcon());
+        holder.languageToFlag.setImageResource(row.getRightIcon());
+    }
+
+    //// Flags ////
+
+    /**
+     * Returns the drawable of the flag for the language, or 0 if there is none
+     */
+    public static int getFlagResource(String language) {
+        if (language == null)
+            return 0;
+
+        switch (language) {
+            case "en":
+                return R.drawable.flag_uk;
+            case "de":
+                return R.drawable.flag_german;
+            case "fr":
+                return R.drawable.flag_france;
+            case "it":
+                return R.drawable.flag_italy;
+            case "nl":
+                return R.drawable.flag_netherlands;
+            case "pt":
+                return R.drawable.flag_portugal;
+            case "es":
+                return R.drawable.flag_spain;
+            default:
+                return 0;
+        }
+    }
+
+    //// View holders for the list elements so that they can be reused ////
+
+    static class HeaderViewHolder {
+        TextView header_title;
+        ImageView group_status;
+    }
+
+    static class InfoHeaderViewHolder {
+        TextView header_title;
+    }
+
+    static class ItemViewHolder {
+        TextView languageFromWord;
+        TextView languageToWord;
+        TextView context;
+
+        ImageView languageFromFlag;
+        ImageView languageToFlag;
+    }
+}
@@ -2,45 +2,246 @@ package ch.unibe.zeeguulibrary.WebView;
 
 import android.annotation.TargetApi;
 import android.app.Activity;
+import android.content.Context;
+import android.graphics.Bitmap;
 import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import android.webkit.ValueCallback;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
 
-import ch.unibe.zeeguulibrary.Core.Utility;
+import java.util.ArrayList;
+
+import ch.unibe.zeeguulibrary.Core.AssetCache;
+import ch.unibe.zeeguulibrary.Core.PageTimings;
+import ch.unibe.zeeguulibrary.Core.PageTimingsSummary;
 
 public class ZeeguuWebViewClient extends WebViewClient {
 
+    private static final String INJECT_CSS_SCRIPT = "javascript/injectCSS.js";
+    private static final String CSS = "css/highlight.css";
+    // Class of the words highlighted by highlight_words.js
+    private static final String HIGHLIGHT_CLASS = "zeeguu-visited";
+    private static final String[] SCRIPTS = {
+            "javascript/jquery-2.1.3.min.js",
+            "javascript/selectionChangeListener.js",
+            "javascript/extract_contribution.js",
+            "javascript/extract_visible_text.js",
+            "javascript/common/highlight_words.js",
+            "javascript/common/extract_context.js",
+            "javascript/common/text_selection.js"
+    };
+
     private Activity activity;
+    private AssetCache assets;
+    // Script that injects the css, built once
+    private String cssInjection;
     private ZeeguuWebViewFragment.ZeeguuWebViewCallbacks callback;
     private WebView webView;
     private boolean displayTitle;
+    private boolean earlyInjection;
+
+    // Whether the scripts were already injected into the current document
+    private boolean scriptsInjected;
+
+    // Timings of the phases of the page load, for the last pages
+    private static final int PAGE_TIMINGS_SUMMARY_SIZE = 20;
+    private final PageTimingsSummary pageTimingsSummary = new PageTimingsSummary(PAGE_TIMINGS_SUMMARY_SIZE);
+    private PageTimingsListener pageTimingsListener;
+    private PageTimer pageTimer;
+
+    /**
+     * Gets the timings of every page after its words are highlighted, on the UI thread
+     */
+    public interface PageTimingsListener {
+        void onPageTimings(PageTimings timings);
+    }
+
+    /**
+     * Collects the timings of the current page. The scripts are evaluated in the order they are
+     * sent, so an empty script evaluated after the others reports when they have all run.
+     */
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private class PageTimer {
+        final String url;
+        final long started = SystemClock.elapsedRealtime();
+        long pageLoad = -1;
+        long assetLoad = -1;
+        long injection = -1;
+        long highlight = -1;
+        long titleUpdate;
+        int highlightedWords;
+
+        PageTimer(String url) {
+            this.url = url;
+        }
+
+        void onInjected(final long start) {
+            webView.evaluateJavascript("0;", new ValueCallback<String>() {
+                @Override
+                public void onReceiveValue(String value) {
+                    injection = SystemClock.elapsedRealtime() - start;
+                    report();
+                }
+            });
+        }
+
+        void onHighlighted(final long start) {
+            // Also counts the highlighted occurrences, the highlight script marks them with HIGHLIGHT_CLASS
+            webView.evaluateJavascript("document.getElementsByClassName(\"" + HIGHLIGHT_CLASS + "\").length;",
+                    new ValueCallback<String>() {
+                @Override
+                public void onReceiveValue(String value) {
+                    highlight = SystemClock.elapsedRealtime() - start;
+                    try {
+                        highlightedWords = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        highlightedWords = 0;
+                    }
+                    report();
+                }
+            });
+        }
+
+        private void report() {
+            if (injection == -1 || highlight == -1 || pageTimer != this)
+                return;
+            pageTimer = null;
+
+            PageTimings timings = new PageTimings(url, pageLoad, assetLoad, injection, highlight, titleUpdate, highlightedWords);
+            pageTimingsSummary.add(timings);
+            if (pageTimingsListener != null)
+                pageTimingsListener.onPageTimings(timings);
+        }
+    }
 
     public ZeeguuWebViewClient(Activity activity, ZeeguuWebViewFragment.ZeeguuWebViewCallbacks callback, WebView webView, boolean displayTitle) {
+        this(activity, callback, webView, displayTitle, false);
+    }
+
+    public ZeeguuWebViewClient(Activity activity, ZeeguuWebViewFragment.ZeeguuWebViewCallbacks callback, WebView webView,
+                               boolean displayTitle, boolean earlyInjection) {
         this.activity = activity;
+        this.assets = AssetCache.getInstance(activity);
         this.callback = callback;
         this.webView = webView;
         this.displayTitle = displayTitle;
+        this.earlyInjection = earlyInjection;
+    }
+
+    @Override
+    public void onPageStarted(WebView view, String url, Bitmap favicon) {
+        super.onPageStarted(view, url, favicon);
+        scriptsInjected = false;
+        pageTimer = new PageTimer(url);
+    }
+
+    /**
+     * Called as soon as the new page is visible (Android >= 6.0), which on heavy pages is long
+     * before onPageFinished. Installs the selection listener and highlight runtime so that
+     * selections made while the page is still loading already get translated.
+     */
+    @Override
+    public void onPageCommitVisible(WebView view, String url) {
+        super.onPageCommitVisible(view, url);
+        if (earlyInjection)
+            injectScripts(view);
     }
 
-    @TargetApi(Build.VERSION_CODES.KITKAT)
     @Override
     public void onPageFinished(WebView view, String url) {
         super.onPageFinished(view, url);
+
+        // Only the first time the page finished is measured
+        final PageTimer timer = pageTimer != null && pageTimer.pageLoad == -1 ? pageTimer : null;
+        if (timer != null)
+            timer.pageLoad = SystemClock.elapsedRealtime() - timer.started;
+
+        injectScripts(view);
+
+        if (earlyInjection) {
+            // Highlighting is not needed to interact with the page, so wait until the UI is idle
+            Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+                @Override
+                public boolean queueIdle() {
+                    highlightMyWords(timer);
+                    return false;
+                }
+            });
+        } else {
+            highlightMyWords(timer);
+        }
+
+        if (displayTitle) {
+            long start = SystemClock.elapsedRealtime();
+            callback.getSupportActionBar().setTitle(webView.getTitle());
+            if (timer != null)
+                timer.titleUpdate = SystemClock.elapsedRealtime() - start;
+        }
+    }
+
+    private void highlightMyWords(PageTimer timer) {
+        long start = SystemClock.elapsedRealtime();
+        callback.getZeeguuConnectionManager().getAccount().highlightMyWords();
+        if (timer != null)
+            timer.onHighlighted(start);
+    }
+
+    /**
+     * Injects the css and javascript needed for the translation, only once per document
+     */
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private void injectScripts(WebView view) {
+        if (scriptsInjected)
+            return;
+        scriptsInjected = true;
+
+        long start = SystemClock.elapsedRealtime();
+        ArrayList<String> scripts = new ArrayList<>(SCRIPTS.length + 2);
         // css
-        view.evaluateJavascript(Utility.assetToString(activity, "javascript/injectCSS.js"), null);
-        String css = Utility.assetToString(activity, "css/highlight.css").replace("\n", "").replace("\r", "").trim();
-        view.evaluateJavascript("injectCSS(\"" + css + "\");", null);
+        scripts.add(assets.get(INJECT_CSS_SCRIPT));
+        if (cssInjection == null)
+            cssInjection = "injectCSS(\"" + assets.get(CSS).replace("\n", "").replace("\r", "").trim() + "\");";
+        scripts.add(cssInjection);
         // javascript
-        view.evaluateJavascript(Utility.assetToString(activity, "javascript/jquery-2.1.3.min.js"), null);
-        view.evaluateJavascript(Utility.assetToString(activity, "javascript/selectionChangeListener.js"), null);
-        view.evaluateJavascript(Utility.assetToString(activity, "javascript/extract_contribution.js"), null);
-        view.evaluateJavascript(Utility.assetToString(activity, "javascript/common/highlight_words.js"), null);
-        view.evaluateJavascript(Utility.assetToString(activity, "javascript/common/extract_context.js"), null);
-        view.evaluateJavascript(Utility.assetToString(activity, "javascript/common/text_selection.js"), null);
+        for (String script : SCRIPTS)
+            scripts.add(assets.get(script));
 
-        callback.getZeeguuConnectionManager().getAccount().highlightMyWords();
+        long injectionStart = SystemClock.elapsedRealtime();
+        for (String script : scripts)
+            view.evaluateJavascript(script, null);
 
-        if (displayTitle)
-            callback.getSupportActionBar().setTitle(webView.getTitle());
+        if (pageTimer != null) {
+            pageTimer.assetLoad = injectionStart - start;
+            pageTimer.onInjected(injectionStart);
+        }
+    }
+
+    /**
+     * Reads the css and javascript in the background, so that the first page does not wait for it
+     */
+    public static void warmUpAssets(Context context) {
+        String[] paths = new String[SCRIPTS.length + 2];
+        paths[0] = INJECT_CSS_SCRIPT;
+        paths[1] = CSS;
+        System.arraycopy(SCRIPTS, 0, paths, 2, SCRIPTS.length);
+        AssetCache.getInstance(context).warmUp(paths);
+    }
+
+    /**
+     * Summary of the timings of the last pages
+     */
+    public PageTimingsSummary getPageTimingsSummary() {
+        return pageTimingsSummary;
+    }
+
+    public void setPageTimingsListener(PageTimingsListener pageTimingsListener) {
+        this.pageTimingsListener = pageTimingsListener;
+    }
+
+    public void setEarlyInjection(boolean earlyInjection) {
+        this.earlyInjection = earlyInjection;
     }
 }
@@ -6,6 +6,7 @@ import android.app.Fragment;
 import android.content.SharedPreferences;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
 import android.preference.PreferenceManager;
 import android.support.v7.app.ActionBar;
 import android.text.Html;
@@ -13,6 +14,7 @@ import android.util.JsonReader;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.webkit.ValueCallback;
 import android.webkit.WebChromeClient;
 import android.webkit.WebSettings;
@@ -24,8 +26,11 @@ import android.widget.TextView;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.ArrayList;
 
 import ch.unibe.R;
+import ch.unibe.zeeguulibrary.Core.ContextExtractor;
+import ch.unibe.zeeguulibrary.Core.PageTimingsSummary;
 import ch.unibe.zeeguulibrary.Core.ZeeguuAccount;
 import ch.unibe.zeeguulibrary.Core.ZeeguuConnectionManager;
 
@@ -43,10 +48,27 @@ public class ZeeguuWebViewFragment extends Fragment {
 
     private String context, title, url;
     private String selection, translation;
+
+    // Paragraph of the current selection, sent by the page together with the selection
+    private String paragraph;
     private boolean displayTitle = true;
+    private boolean earlyInjection = true;
 
     protected SharedPreferences sharedPref;
 
+    private ZeeguuWebViewClient webViewClient;
+    private ZeeguuWebViewClient.PageTimingsListener pageTimingsListener;
+
+    // Translation prefetching for the visible part of the page
+    private static final int PREFETCH_DELAY = 500;
+    private Handler prefetchHandler = new Handler();
+    private Runnable prefetchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            prefetchVisibleTranslations();
+        }
+    };
+
     protected ZeeguuWebViewCallbacks callback;
 
     /**
@@ -97,6 +119,7 @@ public class ZeeguuWebViewFragment extends Fragment {
         super.onActivityCreated(savedInstanceState);
         sharedPref = PreferenceManager.getDefaultSharedPreferences(getActivity());
 
+        ZeeguuWebViewClient.warmUpAssets(getActivity());
         prepareWebView();
     }
 
@@ -115,13 +138,16 @@ public class ZeeguuWebViewFragment extends Fragment {
         bookmarkButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                extractContextFromPage();
+                if (!extractContextFromSelection())
+                    extractContextFromPage();
                 translationBar.setVisibility(View.GONE);
             }
         });
 
         // Force links and redirects to open in the WebView instead of in a browser, inject css and javascript
-        webView.setWebViewClient(new ZeeguuWebViewClient(getActivity(), callback, webView, displayTitle));
+        webViewClient = new ZeeguuWebViewClient(getActivity(), callback, webView, displayTitle, earlyInjection);
+        webViewClient.setPageTimingsListener(pageTimingsListener);
+        webView.setWebViewClient(webViewClient);
 
         webView.setWebChromeClient(new WebChromeClient() {
             public void onProgressChanged(WebView view, int progress) {
@@ -131,9 +157,18 @@ public class ZeeguuWebViewFragment extends Fragment {
                     progressBar.setVisibility(ProgressBar.VISIBLE);
                 } else {
                     progressBar.setVisibility(ProgressBar.GONE);
+                    schedulePrefetch();
                 }
             }
         });
+
+        // Prefetch the translations of the newly visible text when the user stops scrolling
+        webView.getViewTreeObserver().addOnScrollChangedListener(new ViewTreeObserver.OnScrollChangedListener() {
+            @Override
+            public void onScrollChanged() {
+                schedulePrefetch();
+            }
+        });
     }
 
     @Override
@@ -148,6 +183,32 @@ public class ZeeguuWebViewFragment extends Fragment {
         }
     }
 
+    /**
+     * Called by the javascript interface with the data of the current selection
+     */
+    public synchronized void setSelectionContext(String selection, String paragraph, String title, String url) {
+        this.selection = selection;
+        this.paragraph = paragraph;
+        this.title = title;
+        this.url = url;
+    }
+
+    /**
+     * Extracts the context from the paragraph that was sent with the selection, so that the
+     * bookmark can be submitted without asking the page for the context first
+     *
+     * @return false if no paragraph is known for the current selection
+     */
+    public synchronized boolean extractContextFromSelection() {
+        if (paragraph == null || selection == null)
+            return false;
+
+        context = ContextExtractor.extractContext(paragraph, selection,
+                ContextExtractor.getLocale(sharedPref.getString("pref_zeeguu_language_learning", "EN")));
+        submitContext();
+        return true;
+    }
+
     @TargetApi(Build.VERSION_CODES.KITKAT)
     public void extractContextFromPage() {
         webView.evaluateJavascript("getContext();", new ValueCallback<String>() {
@@ -178,6 +239,51 @@ public class ZeeguuWebViewFragment extends Fragment {
         });
     }
 
+    private void schedulePrefetch() {
+        if (!isPrefetchOn())
+            return;
+
+        prefetchHandler.removeCallbacks(prefetchRunnable);
+        prefetchHandler.postDelayed(prefetchRunnable, PREFETCH_DELAY);
+    }
+
+    /**
+     * Translates the words of the visible text in the background, so that the translation
+     * can be displayed without waiting for the server when they get selected
+     */
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    public void prefetchVisibleTranslations() {
+        if (webView == null || !isAdded())
+            return;
+
+        webView.evaluateJavascript("getVisibleWords();", new ValueCallback<String>() {
+            @Override
+            public void onReceiveValue(String value) {
+                if (value == null || !value.startsWith("["))
+                    return; // script not injected yet
+
+                ArrayList<String> words = new ArrayList<>();
+                JsonReader reader = new JsonReader(new StringReader(value));
+                try {
+                    reader.beginArray();
+                    while (reader.hasNext())
+                        words.add(reader.nextString());
+                    reader.endArray();
+                } catch (IOException e) {
+                    return;
+                }
+
+                callback.getZeeguuConnectionManager().prefetchTranslations(words,
+                        sharedPref.getString("pref_zeeguu_language_learning", "EN"),
+                        sharedPref.getString("pref_zeeguu_language_native", "DE"));
+            }
+        });
+    }
+
+    public boolean isPrefetchOn() {
+        return sharedPref != null && sharedPref.getBoolean("pref_zeeguu_prefetch_translations", false);
+    }
+
     public void submitContext() {
         callback.getZeeguuConnectionManager().bookmarkWithContext(selection, sharedPref.getString("pref_zeeguu_language_learning", "EN")
                 , translation, sharedPref.getString("pref_zeeguu_language_native", "DE"), title, url, context);
@@ -226,6 +332,7 @@ public class ZeeguuWebViewFragment extends Fragment {
     @Override
     public void onPause() {
         super.onPause();
+        prefetchHandler.removeCallbacks(prefetchRunnable);
     }
 
     @Override
@@ -312,7 +419,31 @@ public class ZeeguuWebViewFragment extends Fragment {
     public void enableTitle(boolean displayTitle) {
         this.displayTitle = displayTitle;
     }
+
+    /**
+     * Inject the scripts as soon as the page is visible instead of after it finished loading,
+     * must be called before the fragment is attached
+     */
+    public void enableEarlyInjection(boolean earlyInjection) {
+        this.earlyInjection = earlyInjection;
+    }
     
+    /**
+     * Gets the timings of the phases of every page load (assets, injection, highlighting, title)
+     */
+    public void setPageTimingsListener(ZeeguuWebViewClient.PageTimingsListener pageTimingsListener) {
+        this.pageTimingsListener = pageTimingsListener;
+        if (webViewClient != null)
+            webViewClient.setPageTimingsListener(pageTimingsListener);
+    }
+
+    /**
+     * Summary of the timings of the last pages, or null before the WebView is prepared
+     */
+    public PageTimingsSummary getPageTimingsSummary() {
+        return webViewClient != null ? webViewClient.getPageTimingsSummary() : null;
+    }
+
     public ProgressBar getProgressBar() {
         return progressBar;
     }
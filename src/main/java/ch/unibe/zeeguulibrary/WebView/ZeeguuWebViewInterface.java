@@ -3,11 +3,16 @@ package ch.unibe.zeeguulibrary.WebView;
 import android.app.Activity;
 import android.content.SharedPreferences;
 import android.preference.PreferenceManager;
+import android.util.JsonReader;
+import android.util.Log;
 import android.view.View;
 import android.webkit.JavascriptInterface;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import java.io.IOException;
+import java.io.StringReader;
+
 import ch.unibe.R;
 import ch.unibe.zeeguulibrary.Core.ZeeguuConnectionManager;
 
@@ -45,19 +50,88 @@ public class ZeeguuWebViewInterface {
         Toast.makeText(context, toast, Toast.LENGTH_SHORT).show();
     }
 
+    /**
+     * Receives all messages that were posted by the page during one animation frame and
+     * only applies the latest state, instead of handling every selection change on its own
+     */
     @JavascriptInterface
-    public void updateTranslation(String selection) {
-        if (callback.getWebViewFragment().getTranslationBar().getVisibility() == View.GONE) {
-            context.runOnUiThread(new Runnable() {
-                public void run() {
-                    // Show translation bar
-                    callback.getWebViewFragment().getTranslationBar().setVisibility(View.VISIBLE);
-                    // Display login dialog if not logged in
-                    if (!callback.getWebViewFragment().getCallback().getZeeguuAccount().isUserLoggedIn())
-                        callback.getWebViewFragment().getCallback().showZeeguuLoginDialog(context.getString(R.string.error_login_first), "");
+    public void dispatchMessages(String messages) {
+        String selectionType = null, selection = null, text = null;
+        String paragraph = null, title = null, url = null;
+
+        JsonReader reader = new JsonReader(new StringReader(messages));
+        try {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                String type = null, value = null;
+                String valueParagraph = null, valueTitle = null, valueUrl = null;
+
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (name.equals("type"))
+                        type = reader.nextString();
+                    else if (name.equals("selection"))
+                        value = reader.nextString();
+                    else if (name.equals("paragraph"))
+                        valueParagraph = reader.nextString();
+                    else if (name.equals("title"))
+                        valueTitle = reader.nextString();
+                    else if (name.equals("url"))
+                        valueUrl = reader.nextString();
+                    else
+                        reader.skipValue();
+                }
+                reader.endObject();
+
+                if ("updateTranslation".equals(type) || "hideTranslation".equals(type)
+                        || "selectionContext".equals(type)) {
+                    selectionType = type;
+                    selection = value;
+                    paragraph = valueParagraph;
+                    title = valueTitle;
+                    url = valueUrl;
+                } else if ("updateText".equals(type)) {
+                    text = value;
                 }
-            });
+            }
+            reader.endArray();
+        } catch (IOException | IllegalStateException e) {
+            Log.e("dispatch_messages", e.toString());
+            return;
+        }
+
+        if ("updateTranslation".equals(selectionType)) {
+            // The paragraph only follows when the selection stopped changing, until then the
+            // paragraph of an older selection must not be used
+            callback.getWebViewFragment().setSelectionContext(selection, null, null, null);
+            updateTranslation(selection);
         }
+        else if ("selectionContext".equals(selectionType))
+            // Keep the context of the selection for a possible bookmark
+            callback.getWebViewFragment().setSelectionContext(selection, paragraph, title, url);
+        else if ("hideTranslation".equals(selectionType))
+            hideTranslation();
+
+        if (text != null)
+            updateText(text);
+    }
+
+    @JavascriptInterface
+    public void updateTranslation(String selection) {
+        // The views are only read on the UI thread, after the runnables posted before this one
+        context.runOnUiThread(new Runnable() {
+            public void run() {
+                if (callback.getWebViewFragment().getTranslationBar().getVisibility() != View.GONE)
+                    return; // already shown
+
+                // Show translation bar
+                callback.getWebViewFragment().getTranslationBar().setVisibility(View.VISIBLE);
+                // Display login dialog if not logged in
+                if (!callback.getWebViewFragment().getCallback().getZeeguuAccount().isUserLoggedIn())
+                    callback.getWebViewFragment().getCallback().showZeeguuLoginDialog(context.getString(R.string.error_login_first), "");
+            }
+        });
 
         callback.getZeeguuConnectionManager().translate(selection, sharedPref.getString("pref_zeeguu_language_learning", "EN"),
                 sharedPref.getString("pref_zeeguu_language_native", "DE"));
@@ -65,6 +139,7 @@ public class ZeeguuWebViewInterface {
 
     @JavascriptInterface
     public void hideTranslation() {
+        // Not checked here, a translation bar that is about to be shown must be hidden as well
         context.runOnUiThread(new Runnable() {
             public void run() {
                 // Hide translation bar
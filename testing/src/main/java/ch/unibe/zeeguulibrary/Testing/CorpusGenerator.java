@@ -0,0 +1,309 @@
+package ch.unibe.zeeguulibrary.Testing;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import ch.unibe.zeeguulibrary.Core.MyWordsStorage;
+import ch.unibe.zeeguulibrary.Core.ZeeguuApiJson;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsHeader;
+
+/**
+ * Creates realistic test data: bookmark histories as sent by the server, MyWords files as saved
+ * on the phone and article pages. The same seed always creates the same data.
+ *
+ * The words of every language are made of syllables of the language and are used with a
+ * Zipf-like distribution, so a few words are very common and most words are rare, like in real
+ * texts. Bookmarks and pages of the same language therefore share their common words.
+ */
+public class CorpusGenerator {
+
+    public static final String[] LANGUAGES = {"de", "en", "es", "fr", "it", "nl", "pt"};
+
+    private static final String[][] SYLLABLES = {
+            {"ge", "ver", "be", "ein", "un", "sch", "ung", "keit", "lich", "en", "er", "ach", "ich", "st\u00e4", "f\u00fc", "m\u00f6", "hau", "zei", "wer", "stra"},
+            {"the", "ing", "er", "tion", "al", "re", "con", "ly", "ment", "ex", "pro", "ness", "ight", "ou", "ble", "com", "ful", "ter", "ward", "sh"},
+            {"ci\u00f3n", "es", "de", "la", "men", "te", "ar", "or", "ien", "da", "pa", "ci", "\u00f1o", "ra", "mos", "ado", "ver", "to", "con", "tra"},
+            {"tion", "ment", "re", "de", "eau", "ais", "\u00e9", "ou", "ille", "con", "eur", "pr\u00e9", "ant", "oi", "que", "ch", "esse", "\u00e8re", "par", "vr"},
+            {"zione", "men", "to", "ca", "re", "ri", "gli", "chi", "ssi", "ta", "lo", "pre", "con", "ro", "ve", "ti", "zza", "no", "della", "\u00e0"},
+            {"ge", "ver", "ij", "aa", "oe", "sch", "ing", "heid", "lijk", "en", "ee", "be", "ont", "uit", "oo", "kt", "cht", "wer", "ui", "van"},
+            {"\u00e7\u00e3o", "men", "to", "de", "re", "\u00f5es", "lh", "nh", "ar", "ei", "con", "pa", "da", "ra", "ido", "vo", "ca", "ter", "pro", "m\u00e3"}
+    };
+
+    public static final int VOCABULARY_SIZE = 5000;
+    // Format of the days in bookmarks_by_day
+    public static final String DATE_FORMAT = "EEEE, dd MMMM yyyy";
+
+    private final long seed;
+    private final HashMap<String, String[]> vocabularies = new HashMap<>();
+    private final HashMap<String, HashMap<String, Integer>> ranks = new HashMap<>();
+
+    // Shape of the bookmark history
+    private int meanWordsPerDay = 15;
+    private int meanWordsPerArticle = 4;
+    private int meanContextWords = 14;
+
+    public CorpusGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public CorpusGenerator setMeanWordsPerDay(int meanWordsPerDay) {
+        this.meanWordsPerDay = meanWordsPerDay;
+        return this;
+    }
+
+    public CorpusGenerator setMeanWordsPerArticle(int meanWordsPerArticle) {
+        this.meanWordsPerArticle = meanWordsPerArticle;
+        return this;
+    }
+
+    public CorpusGenerator setMeanContextWords(int meanContextWords) {
+        this.meanContextWords = meanContextWords;
+        return this;
+    }
+
+    //// Bookmarks ////
+
+    /**
+     * Bookmark history in the format of bookmarks_by_day/with_context, the newest day first.
+     * The bookmarks have the ids 1 to words, the newest bookmark has the highest id.
+     */
+    public JSONArray createBookmarksByDay(int words, String languageFrom, String languageTo) throws JSONException {
+        Random random = new Random(seed);
+        SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT, Locale.US);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        Calendar day = new GregorianCalendar(2015, Calendar.NOVEMBER, 30);
+        day.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        JSONArray days = new JSONArray();
+        int id = words;
+        while (id > 0) {
+            JSONArray bookmarks = new JSONArray();
+            int wordsOfDay = Math.min(id, nextCount(random, meanWordsPerDay));
+
+            while (wordsOfDay > 0) {
+                int wordsOfArticle = Math.min(wordsOfDay, nextCount(random, meanWordsPerArticle));
+                String title = createTitle(random, languageFrom);
+                String url = "http://www.example.com/" + languageFrom + "/" + Integer.toHexString(random.nextInt());
+
+                for (int i = 0; i < wordsOfArticle; i++, id--) {
+                    int rank = nextRank(random);
+                    JSONObject bookmark = new JSONObject();
+                    bookmark.put("id", id);
+                    bookmark.put("from", getWord(languageFrom, rank));
+                    bookmark.put("from_lang", languageFrom);
+                    bookmark.put("to", new JSONArray().put(getWord(languageTo, rank)));
+                    bookmark.put("to_lang", languageTo);
+                    bookmark.put("title", title);
+                    bookmark.put("url", url);
+                    bookmark.put("context", createSentence(random, languageFrom, nextCount(random, meanContextWords)));
+                    bookmarks.put(bookmark);
+                }
+                wordsOfDay -= wordsOfArticle;
+            }
+
+            JSONObject jsonDay = new JSONObject();
+            jsonDay.put("date", dateFormat.format(day.getTime()));
+            jsonDay.put("bookmarks", bookmarks);
+            days.put(jsonDay);
+
+            // Not every day has bookmarks
+            day.add(Calendar.DAY_OF_MONTH, -1 - (random.nextInt(3) == 0 ? random.nextInt(7) : 0));
+        }
+
+        return days;
+    }
+
+    /**
+     * The same history as createBookmarksByDay, as MyWords
+     */
+    public ArrayList<MyWordsHeader> createMyWords(int words, String languageFrom, String languageTo) throws JSONException {
+        return ZeeguuApiJson.parseMyWords(createBookmarksByDay(words, languageFrom, languageTo));
+    }
+
+    /**
+     * The same history as createBookmarksByDay, in the format MyWords is saved on the phone
+     */
+    public String createMyWordsFile(int words, String languageFrom, String languageTo) throws JSONException, IOException {
+        StringWriter data = new StringWriter();
+        BufferedWriter bufferedWriter = new BufferedWriter(data);
+        MyWordsStorage.write(bufferedWriter, createMyWords(words, languageFrom, languageTo));
+        bufferedWriter.close();
+        return data.toString();
+    }
+
+    //// Pages ////
+
+    /**
+     * Article page with about this number of words, to test the highlighting and the extraction
+     * of the visible words
+     */
+    public String createArticlePage(String language, int words) {
+        Random random = new Random(seed ^ language.hashCode() ^ words);
+        StringBuilder page = new StringBuilder(words * 10);
+
+        String title = createTitle(random, language);
+        page.append("<!DOCTYPE html>\n<html lang=\"").append(language).append("\">\n<head>\n<meta charset=\"utf-8\">\n<title>")
+                .append(title).append("</title>\n</head>\n<body>\n<article>\n<h1>").append(title).append("</h1>\n");
+
+        int written = 0;
+        while (written < words) {
+            int paragraphWords = Math.min(words - written, nextCount(random, 60));
+            page.append("<p>");
+            int sentenceWords;
+            for (int i = 0; i < paragraphWords; i += sentenceWords) {
+                sentenceWords = Math.min(paragraphWords - i, nextCount(random, meanContextWords));
+                if (i > 0)
+                    page.append(' ');
+                // Some words are in links or emphasized, so that they are split over several nodes
+                if (random.nextInt(4) == 0)
+                    page.append("<a href=\"#").append(i).append("\">").append(createSentence(random, language, sentenceWords)).append("</a>");
+                else if (random.nextInt(4) == 0)
+                    page.append("<em>").append(createSentence(random, language, sentenceWords)).append("</em>");
+                else
+                    page.append(createSentence(random, language, sentenceWords));
+            }
+            page.append("</p>\n");
+            written += paragraphWords;
+        }
+
+        return page.append("</article>\n</body>\n</html>\n").toString();
+    }
+
+    /**
+     * Text as it is returned by the JavaScript of the WebView: quotes, backslashes, line breaks
+     * and non-ASCII characters are escaped
+     */
+    public String createEscapedText(String language, int words) {
+        Random random = new Random(seed ^ language.hashCode());
+        StringBuilder text = new StringBuilder();
+
+        for (int i = 0; i < words; i += 10) {
+            String sentence = createSentence(random, language, Math.min(10, words - i));
+            if (random.nextInt(5) == 0)
+                sentence = "\"" + sentence + "\"";
+            escape(sentence, text);
+            text.append(random.nextInt(3) == 0 ? "\\n" : " ");
+        }
+
+        return text.toString();
+    }
+
+    private static void escape(String string, StringBuilder escaped) {
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == '"' || c == '\\')
+                escaped.append('\\').append(c);
+            else if (c == '\n')
+                escaped.append("\\n");
+            else if (c < 0x20 || c > 0x7e)
+                escaped.append(String.format("\\u%04x", (int) c));
+            else
+                escaped.append(c);
+        }
+    }
+
+    //// Words ////
+
+    /**
+     * Returns the word of the language with this rank, 0 is the most common word
+     */
+    public String getWord(String language, int rank) {
+        return getVocabulary(language)[rank];
+    }
+
+    /**
+     * Returns the rank of the word in the vocabulary of the language, or -1 if it is not a word
+     * of this language
+     */
+    public synchronized int getRank(String language, String word) {
+        HashMap<String, Integer> ranksOfLanguage = ranks.get(language);
+        if (ranksOfLanguage == null) {
+            String[] vocabulary = getVocabulary(language);
+            ranksOfLanguage = new HashMap<>(vocabulary.length * 2);
+            for (int rank = 0; rank < vocabulary.length; rank++)
+                ranksOfLanguage.put(vocabulary[rank], rank);
+            ranks.put(language, ranksOfLanguage);
+        }
+
+        Integer rank = ranksOfLanguage.get(word.toLowerCase(Locale.ROOT));
+        return rank != null ? rank : -1;
+    }
+
+    public String createSentence(Random random, String language, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = getWord(language, nextRank(random));
+            if (i == 0)
+                sentence.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            else
+                sentence.append(' ').append(word);
+        }
+        return sentence.append('.').toString();
+    }
+
+    private String createTitle(Random random, String language) {
+        String title = createSentence(random, language, 3 + random.nextInt(6));
+        return title.substring(0, title.length() - 1);
+    }
+
+    private synchronized String[] getVocabulary(String language) {
+        String[] vocabulary = vocabularies.get(language);
+        if (vocabulary != null)
+            return vocabulary;
+
+        int languageIndex = 0;
+        while (languageIndex < LANGUAGES.length && !LANGUAGES[languageIndex].equals(language))
+            languageIndex++;
+        if (languageIndex == LANGUAGES.length)
+            throw new IllegalArgumentException("Unknown language: " + language);
+
+        // Common words are short, rare words are long
+        Random random = new Random(seed * 31 + languageIndex);
+        String[] syllables = SYLLABLES[languageIndex];
+        vocabulary = new String[VOCABULARY_SIZE];
+        HashMap<String, Boolean> used = new HashMap<>(VOCABULARY_SIZE * 2);
+
+        for (int rank = 0; rank < VOCABULARY_SIZE; ) {
+            int length = 1 + random.nextInt(2) + (int) (Math.log10(rank + 1) * random.nextDouble() * 1.5);
+            StringBuilder word = new StringBuilder();
+            for (int i = 0; i < length; i++)
+                word.append(syllables[random.nextInt(syllables.length)]);
+
+            if (used.put(word.toString(), true) == null)
+                vocabulary[rank++] = word.toString();
+        }
+
+        vocabularies.put(language, vocabulary);
+        return vocabulary;
+    }
+
+    /**
+     * Rank of a word, log-uniform distributed, which is close to the Zipf distribution of real texts
+     */
+    private static int nextRank(Random random) {
+        return Math.min(VOCABULARY_SIZE - 1, (int) Math.pow(VOCABULARY_SIZE, random.nextDouble()) - 1);
+    }
+
+    /**
+     * Count of at least 1, geometrically distributed around the mean
+     */
+    private static int nextCount(Random random, int mean) {
+        if (mean <= 1)
+            return 1;
+        double p = 1.0 / mean;
+        return 1 + (int) (Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+    }
+}
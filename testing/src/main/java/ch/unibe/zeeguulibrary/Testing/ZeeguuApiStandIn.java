@@ -0,0 +1,632 @@
+package ch.unibe.zeeguulibrary.Testing;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Zeeguu API, so that the library can be tested and load-tested without
+ * the production server. The bookmarks, translations and texts come from a CorpusGenerator.
+ *
+ * The latency, the errors and the size of the responses can be set for every endpoint, the
+ * endpoint is the first part of the path, e.g. "translate" or "bookmarks_by_day":
+ *
+ *     ZeeguuApiStandIn server = new ZeeguuApiStandIn(new CorpusGenerator(42), 10000);
+ *     server.getBehavior("translate").setLatency(800, 400).setErrorRate(0.1, 503);
+ *     server.start(8080);
+ *     connectionManager.setApiUrl(server.getUrl("10.0.2.2"));
+ *
+ * The emulator reaches the computer as 10.0.2.2. A phone needs start(port, true) and the address
+ * of the computer in the Wi-Fi instead. getUrl() without a host is only for the same computer.
+ */
+public class ZeeguuApiStandIn {
+
+    private static final String LANGUAGE_LEARNING = "de";
+    private static final String LANGUAGE_NATIVE = "en";
+
+    private final CorpusGenerator corpus;
+    private final Random random;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private final Behavior defaultBehavior = new Behavior();
+    private final Map<String, Behavior> behaviors = Collections.synchronizedMap(new HashMap<String, Behavior>());
+    private final Map<String, AtomicInteger> requestCounts = Collections.synchronizedMap(new HashMap<String, AtomicInteger>());
+
+    // State of the single user, guarded by this
+    private final Set<String> sessions = new HashSet<>();
+    private final ArrayList<Day> days = new ArrayList<>();
+    private long nextBookmarkId;
+    private String languageLearning = LANGUAGE_LEARNING;
+    private String languageNative = LANGUAGE_NATIVE;
+    private int contentWords = 1000;
+
+    /**
+     * Latency and errors of an endpoint
+     */
+    public static class Behavior {
+        private volatile int latency;
+        private volatile int jitter;
+        private volatile double errorRate;
+        private volatile int errorStatus = 500;
+
+        /**
+         * Every response is delayed by latency plus a random part of up to jitter milliseconds
+         */
+        public Behavior setLatency(int latency, int jitter) {
+            this.latency = latency;
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * This part of the requests (0 to 1) fails with the HTTP status
+         */
+        public Behavior setErrorRate(double errorRate, int errorStatus) {
+            this.errorRate = errorRate;
+            this.errorStatus = errorStatus;
+            return this;
+        }
+    }
+
+    private static class Day {
+        final String date;
+        final ArrayList<JSONObject> bookmarks = new ArrayList<>();
+
+        Day(String date) {
+            this.date = date;
+        }
+    }
+
+    /**
+     * Creates the stand-in with a history of this number of bookmarks
+     */
+    public ZeeguuApiStandIn(CorpusGenerator corpus, int bookmarks) throws JSONException {
+        this.corpus = corpus;
+        this.random = new Random(bookmarks);
+        setBookmarks(bookmarks);
+    }
+
+    //// Configuration ////
+
+    /**
+     * Behavior of an endpoint, changes are used for the following requests
+     */
+    public Behavior getBehavior(String endpoint) {
+        synchronized (behaviors) {
+            Behavior behavior = behaviors.get(endpoint);
+            if (behavior == null) {
+                behavior = new Behavior();
+                behaviors.put(endpoint, behavior);
+            }
+            return behavior;
+        }
+    }
+
+    /**
+     * Behavior of the endpoints without an own behavior
+     */
+    public Behavior getDefaultBehavior() {
+        return defaultBehavior;
+    }
+
+    /**
+     * Replaces the history with a new one of this number of bookmarks
+     */
+    public synchronized void setBookmarks(int bookmarks) throws JSONException {
+        days.clear();
+        JSONArray jsonDays = corpus.createBookmarksByDay(bookmarks, languageLearning, languageNative);
+        for (int i = 0; i < jsonDays.length(); i++) {
+            JSONObject jsonDay = jsonDays.getJSONObject(i);
+            Day day = new Day(jsonDay.getString("date"));
+            JSONArray jsonBookmarks = jsonDay.getJSONArray("bookmarks");
+            for (int j = 0; j < jsonBookmarks.length(); j++)
+                day.bookmarks.add(jsonBookmarks.getJSONObject(j));
+            days.add(day);
+        }
+        nextBookmarkId = bookmarks + 1;
+    }
+
+    /**
+     * Number of words of the articles returned by get_content_from_url
+     */
+    public synchronized void setContentWords(int contentWords) {
+        this.contentWords = contentWords;
+    }
+
+    /**
+     * Creates a session without logging in, e.g. for load tests
+     */
+    public synchronized String createSession() {
+        String session = Integer.toString(10000000 + random.nextInt(90000000));
+        sessions.add(session);
+        return session;
+    }
+
+    public int getRequestCount(String endpoint) {
+        AtomicInteger count = requestCounts.get(endpoint);
+        return count != null ? count.get() : 0;
+    }
+
+    //// Server ////
+
+    /**
+     * Starts the server on this port of the loopback interface, 0 chooses a free port.
+     * The emulator reaches it as 10.0.2.2, other machines cannot reach it.
+     */
+    public void start(int port) throws IOException {
+        start(port, false);
+    }
+
+    /**
+     * @param allInterfaces whether the server can be reached from the network as well, e.g. from
+     *                      a phone in the same Wi-Fi. Everyone in the network can then use it.
+     */
+    public void start(int port, boolean allInterfaces) throws IOException {
+        InetAddress address = allInterfaces ? InetAddress.getByName("0.0.0.0") : InetAddress.getLoopbackAddress();
+        server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        // Slow responses must not block the other requests
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    handleRequest(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    public void stop() {
+        if (server == null)
+            return;
+
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+    }
+
+    /**
+     * Base URL on this computer, e.g. for tests running on the JVM
+     */
+    public String getUrl() {
+        return getUrl(InetAddress.getLoopbackAddress().getHostAddress());
+    }
+
+    /**
+     * Base URL for ZeeguuConnectionManager.setApiUrl, with the host under which the phone reaches
+     * this computer: 10.0.2.2 from the emulator, the address in the Wi-Fi from a phone
+     */
+    public String getUrl(String host) {
+        if (host.contains(":"))
+            host = "[" + host + "]"; // IPv6
+        return "http://" + host + ":" + server.getAddress().getPort() + "/";
+    }
+
+    private void handleRequest(HttpExchange exchange) throws IOException {
+        // Paths like "//delete_bookmark/1" are accepted as well, as a URI they would have a host
+        String uri = exchange.getRequestURI().toString();
+        int querySeparator = uri.indexOf('?');
+        String rawPath = querySeparator == -1 ? uri : uri.substring(0, querySeparator);
+        String rawQuery = querySeparator == -1 ? null : uri.substring(querySeparator + 1);
+
+        ArrayList<String> path = new ArrayList<>();
+        for (String part : rawPath.split("/"))
+            if (!part.isEmpty())
+                path.add(URLDecoder.decode(part, "UTF-8"));
+
+        String endpoint = path.isEmpty() ? "" : path.get(0);
+        countRequest(endpoint);
+
+        Behavior behavior = behaviors.get(endpoint);
+        if (behavior == null)
+            behavior = defaultBehavior;
+
+        try {
+            int delay = behavior.latency + (behavior.jitter > 0 ? nextInt(behavior.jitter + 1) : 0);
+            if (delay > 0)
+                TimeUnit.MILLISECONDS.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return; // server is stopped
+        }
+
+        if (behavior.errorRate > 0 && nextDouble() < behavior.errorRate) {
+            send(exchange, behavior.errorStatus, "text/plain", "Injected error");
+            return;
+        }
+
+        String body = readBody(exchange.getRequestBody());
+        Map<String, String> query = parseForm(rawQuery);
+
+        try {
+            Response response = route(endpoint, path, query, body);
+            send(exchange, response.status, response.contentType, response.body);
+        } catch (JSONException | RuntimeException e) {
+            send(exchange, 400, "text/plain", e.toString());
+        }
+    }
+
+    private Response route(String endpoint, ArrayList<String> path, Map<String, String> query, String body)
+            throws JSONException, UnsupportedEncodingException {
+        switch (endpoint) {
+            case "add_user":
+            case "session":
+                if (path.size() != 2 || parseForm(body).get("password") == null)
+                    return new Response(400, "Missing email or password");
+                return Response.text(createSession());
+        }
+
+        if (!isInSession(query.get("session")))
+            return new Response(401, "Unauthorized");
+
+        switch (endpoint) {
+            case "translate":
+                if (path.size() != 3)
+                    break;
+                return Response.text(translate(parseForm(body).get("word"), path.get(1), path.get(2)));
+
+            case "bookmark_with_context":
+                if (path.size() != 5)
+                    break;
+                Map<String, String> form = parseForm(body);
+                return Response.text(Long.toString(addBookmark(path.get(2), path.get(1), path.get(4), path.get(3),
+                        form.get("title"), form.get("url"), form.get("context"))));
+
+            case "bookmarks_by_day":
+                if (path.size() == 2 && path.get(1).equals("with_context"))
+                    return Response.json(getBookmarksByDay(null).toString());
+                else if (path.size() == 1)
+                    return Response.json(getBookmarksByDay(parseForm(body).get("after_date")).toString());
+                break;
+
+            case "delete_bookmark":
+                if (path.size() != 2)
+                    break;
+                return Response.text(deleteBookmark(Long.parseLong(path.get(1))) ? "OK" : "FAIL");
+
+            case "learned_and_native_language":
+                return Response.json(getLanguages().toString());
+
+            case "native_language":
+            case "learned_language":
+                if (path.size() != 2)
+                    break;
+                setLanguage(endpoint.equals("native_language"), path.get(1));
+                return Response.text("OK");
+
+            case "get_difficulty_for_text":
+            case "get_learnability_for_text":
+                if (path.size() != 2)
+                    break;
+                return Response.json(scoreTexts(endpoint.equals("get_difficulty_for_text"), path.get(1), new JSONObject(body)).toString());
+
+            case "get_content_from_url":
+                return Response.json(getContents(new JSONObject(body)).toString());
+        }
+
+        return new Response(404, "Not found");
+    }
+
+    private static class Response {
+        final int status;
+        final String contentType;
+        final String body;
+
+        Response(int status, String body) {
+            this(status, "text/plain", body);
+        }
+
+        Response(int status, String contentType, String body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        static Response text(String body) {
+            return new Response(200, "text/plain", body);
+        }
+
+        static Response json(String body) {
+            return new Response(200, "application/json", body);
+        }
+    }
+
+    //// Endpoints ////
+
+    private synchronized boolean isInSession(String session) {
+        return session != null && sessions.contains(session);
+    }
+
+    /**
+     * Words of the corpus are translated to the word with the same rank, other words are marked
+     */
+    private String translate(String word, String languageFrom, String languageTo) {
+        if (word == null)
+            throw new IllegalArgumentException("Missing word");
+
+        int rank = corpus.getRank(languageFrom, word.trim());
+        if (rank == -1)
+            return "[" + languageTo + "] " + word.trim();
+        return corpus.getWord(languageTo, rank);
+    }
+
+    private synchronized long addBookmark(String word, String languageFrom, String translation, String languageTo,
+                                          String title, String url, String context) throws JSONException {
+        long id = nextBookmarkId++;
+
+        JSONObject bookmark = new JSONObject();
+        bookmark.put("id", id);
+        bookmark.put("from", word);
+        bookmark.put("from_lang", languageFrom);
+        bookmark.put("to", new JSONArray().put(translation));
+        bookmark.put("to_lang", languageTo);
+        bookmark.put("title", title != null ? title : "");
+        bookmark.put("url", url != null ? url : "");
+        bookmark.put("context", context != null ? context : "");
+
+        SimpleDateFormat dateFormat = createDateFormat();
+        String today = dateFormat.format(new Date());
+        if (days.isEmpty() || !days.get(0).date.equals(today))
+            days.add(0, new Day(today));
+        days.get(0).bookmarks.add(0, bookmark);
+
+        return id;
+    }
+
+    /**
+     * Days with bookmarks, newest first, only the days after the date (yyyy-MM-dd'T'HH:mm:ss) if
+     * it is not null
+     */
+    private synchronized JSONArray getBookmarksByDay(String afterDate) throws JSONException {
+        SimpleDateFormat dateFormat = createDateFormat();
+        Date after = null;
+        if (afterDate != null) {
+            try {
+                SimpleDateFormat afterDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+                afterDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+                after = afterDateFormat.parse(afterDate);
+            } catch (ParseException e) {
+                throw new IllegalArgumentException("Invalid after_date: " + afterDate);
+            }
+        }
+
+        JSONArray jsonDays = new JSONArray();
+        for (Day day : days) {
+            try {
+                if (after != null && dateFormat.parse(day.date).before(after))
+                    break;
+            } catch (ParseException e) {
+                throw new IllegalStateException(e);
+            }
+
+            JSONObject jsonDay = new JSONObject();
+            jsonDay.put("date", day.date);
+            jsonDay.put("bookmarks", new JSONArray(day.bookmarks));
+            jsonDays.put(jsonDay);
+        }
+
+        return jsonDays;
+    }
+
+    private synchronized boolean deleteBookmark(long id) throws JSONException {
+        for (int i = 0; i < days.size(); i++) {
+            ArrayList<JSONObject> bookmarks = days.get(i).bookmarks;
+            for (int j = 0; j < bookmarks.size(); j++) {
+                if (bookmarks.get(j).getLong("id") == id) {
+                    bookmarks.remove(j);
+                    if (bookmarks.isEmpty())
+                        days.remove(i);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private synchronized JSONObject getLanguages() throws JSONException {
+        JSONObject languages = new JSONObject();
+        languages.put("native", languageNative);
+        languages.put("learned", languageLearning);
+        return languages;
+    }
+
+    private synchronized void setLanguage(boolean nativeLanguage, String language) {
+        if (!Arrays.asList(CorpusGenerator.LANGUAGES).contains(language))
+            throw new IllegalArgumentException("Unknown language: " + language);
+
+        if (nativeLanguage)
+            languageNative = language;
+        else
+            languageLearning = language;
+    }
+
+    /**
+     * Difficulty: how rare the words of the text are. Learnability: how many words of the text are
+     * in the bookmarks.
+     */
+    private JSONObject scoreTexts(boolean difficulty, String language, JSONObject request) throws JSONException {
+        Set<String> bookmarkedWords = difficulty ? null : getBookmarkedWords(language);
+        JSONArray texts = request.getJSONArray("texts");
+        JSONArray scores = new JSONArray();
+
+        for (int i = 0; i < texts.length(); i++) {
+            JSONObject text = texts.getJSONObject(i);
+            ArrayList<Double> wordScores = new ArrayList<>();
+            int count = 0;
+
+            for (String word : text.getString("content").split("[^\\p{L}]+")) {
+                if (word.isEmpty())
+                    continue;
+                int rank = corpus.getRank(language, word);
+                wordScores.add(rank == -1 ? 1.0 : (double) rank / CorpusGenerator.VOCABULARY_SIZE);
+                if (!difficulty && bookmarkedWords.contains(word.toLowerCase(Locale.ROOT)))
+                    count++;
+            }
+
+            JSONObject score = new JSONObject();
+            score.put("id", text.getString("id"));
+            if (difficulty) {
+                Collections.sort(wordScores);
+                double sum = 0;
+                for (double wordScore : wordScores)
+                    sum += wordScore;
+                score.put("score_average", wordScores.isEmpty() ? 0 : sum / wordScores.size());
+                score.put("score_median", wordScores.isEmpty() ? 0 : wordScores.get(wordScores.size() / 2));
+            } else {
+                score.put("score", wordScores.isEmpty() ? 0 : (double) count / wordScores.size());
+                score.put("count", count);
+            }
+            scores.put(score);
+        }
+
+        JSONObject response = new JSONObject();
+        response.put(difficulty ? "difficulties" : "learnabilities", scores);
+        return response;
+    }
+
+    private synchronized Set<String> getBookmarkedWords(String language) throws JSONException {
+        HashSet<String> words = new HashSet<>();
+        for (Day day : days)
+            for (JSONObject bookmark : day.bookmarks)
+                if (bookmark.getString("from_lang").equals(language))
+                    words.add(bookmark.getString("from").toLowerCase(Locale.ROOT));
+        return words;
+    }
+
+    /**
+     * Every url gets an article in the learned language, always the same one for the same url
+     */
+    private JSONObject getContents(JSONObject request) throws JSONException {
+        String language;
+        int words;
+        synchronized (this) {
+            language = languageLearning;
+            words = contentWords;
+        }
+
+        JSONArray urls = request.getJSONArray("urls");
+        JSONArray contents = new JSONArray();
+        for (int i = 0; i < urls.length(); i++) {
+            JSONObject url = urls.getJSONObject(i);
+            JSONObject content = new JSONObject();
+            content.put("content", new CorpusGenerator(url.getString("url").hashCode()).createArticlePage(language, words));
+            content.put("image", "");
+            content.put("id", url.getString("id"));
+            contents.put(content);
+        }
+
+        JSONObject response = new JSONObject();
+        response.put("contents", contents);
+        return response;
+    }
+
+    //// Helpers ////
+
+    private void countRequest(String endpoint) {
+        synchronized (requestCounts) {
+            AtomicInteger count = requestCounts.get(endpoint);
+            if (count == null) {
+                count = new AtomicInteger();
+                requestCounts.put(endpoint, count);
+            }
+            count.incrementAndGet();
+        }
+    }
+
+    private synchronized int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    private synchronized double nextDouble() {
+        return random.nextDouble();
+    }
+
+    private static SimpleDateFormat createDateFormat() {
+        SimpleDateFormat dateFormat = new SimpleDateFormat(CorpusGenerator.DATE_FORMAT, Locale.US);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return dateFormat;
+    }
+
+    private static Map<String, String> parseForm(String form) throws UnsupportedEncodingException {
+        HashMap<String, String> values = new HashMap<>();
+        if (form == null || form.isEmpty())
+            return values;
+
+        for (String pair : form.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator == -1)
+                values.put(URLDecoder.decode(pair, "UTF-8"), "");
+            else
+                values.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+        }
+        return values;
+    }
+
+    private static String readBody(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1)
+            body.write(buffer, 0, read);
+        return body.toString("UTF-8");
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes("UTF-8");
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        OutputStream outputStream = exchange.getResponseBody();
+        outputStream.write(bytes);
+        outputStream.close();
+    }
+
+    /**
+     * Runs the stand-in on its own: [port] [number of bookmarks]
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int bookmarks = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        boolean allInterfaces = args.length > 2 && Boolean.parseBoolean(args[2]);
+
+        ZeeguuApiStandIn standIn = new ZeeguuApiStandIn(new CorpusGenerator(42), bookmarks);
+        standIn.start(port, allInterfaces);
+        System.out.println("Zeeguu API stand-in running on " + standIn.getUrl()
+                + ", the emulator reaches it on " + standIn.getUrl("10.0.2.2"));
+    }
+}
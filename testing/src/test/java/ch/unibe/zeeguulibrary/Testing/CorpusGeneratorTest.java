@@ -0,0 +1,49 @@
+package ch.unibe.zeeguulibrary.Testing;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class CorpusGeneratorTest {
+
+    /**
+     * Benchmarks and tests compare results of different runs, which needs the same corpus
+     */
+    @Test
+    public void sameSeedGivesTheSameCorpus() throws JSONException, IOException {
+        CorpusGenerator corpus = new CorpusGenerator(42);
+        CorpusGenerator sameCorpus = new CorpusGenerator(42);
+
+        assertEquals(corpus.createBookmarksByDay(500, "de", "en").toString(),
+                sameCorpus.createBookmarksByDay(500, "de", "en").toString());
+        assertEquals(corpus.createMyWordsFile(500, "fr", "de"), sameCorpus.createMyWordsFile(500, "fr", "de"));
+        assertEquals(corpus.createArticlePage("de", 1000), sameCorpus.createArticlePage("de", 1000));
+        assertEquals(corpus.createEscapedText("es", 200), sameCorpus.createEscapedText("es", 200));
+        // Also when the history is created a second time by the same generator
+        assertEquals(corpus.createMyWordsFile(500, "fr", "de"), sameCorpus.createMyWordsFile(500, "fr", "de"));
+    }
+
+    @Test
+    public void otherSeedGivesAnotherCorpus() throws JSONException {
+        assertNotEquals(new CorpusGenerator(42).createBookmarksByDay(100, "de", "en").toString(),
+                new CorpusGenerator(43).createBookmarksByDay(100, "de", "en").toString());
+        assertNotEquals(new CorpusGenerator(42).createArticlePage("de", 100),
+                new CorpusGenerator(43).createArticlePage("de", 100));
+    }
+
+    @Test
+    public void getRankFindsTheWordOfTheRank() {
+        CorpusGenerator corpus = new CorpusGenerator(42);
+        for (String language : CorpusGenerator.LANGUAGES) {
+            for (int rank = 0; rank < CorpusGenerator.VOCABULARY_SIZE; rank += 97) {
+                String word = corpus.getWord(language, rank);
+                assertEquals(word, corpus.getWord(language, corpus.getRank(language, word)));
+            }
+        }
+        assertEquals(-1, corpus.getRank("de", "keinwortdesvokabulars"));
+    }
+}
@@ -0,0 +1,154 @@
+package ch.unibe.zeeguulibrary.Testing;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ch.unibe.zeeguulibrary.Core.ZeeguuApiJson;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsHeader;
+import ch.unibe.zeeguulibrary.MyWords.MyWordsItem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ZeeguuApiStandInTest {
+
+    private static final int BOOKMARKS = 200;
+
+    private ZeeguuApiStandIn server;
+    private String session;
+
+    @Before
+    public void startServer() throws JSONException, IOException {
+        server = new ZeeguuApiStandIn(new CorpusGenerator(42), BOOKMARKS);
+        server.start(0);
+        session = server.createSession();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    /**
+     * Logs in and downloads the recent days like ZeeguuConnectionManager, on a free port
+     */
+    @Test
+    public void responsesCanBeParsed() throws IOException, JSONException {
+        String loggedInSession = request("session/user@example.com", "password=secret");
+        assertTrue(loggedInSession.matches("[0-9]+"));
+
+        // The history of the corpus ends on Monday, 30 November 2015
+        String recent = request("bookmarks_by_day?session=" + loggedInSession,
+                "with_context=true&after_date=2015-11-28T00%3A00%3A00");
+        ArrayList<MyWordsHeader> recentMyWords = ZeeguuApiJson.parseMyWords(new JSONArray(recent));
+        ArrayList<MyWordsHeader> myWords = getMyWords();
+
+        assertTrue(recentMyWords.size() > 0);
+        assertTrue(recentMyWords.size() < myWords.size());
+        for (int i = 0; i < recentMyWords.size(); i++)
+            assertEquals(myWords.get(i).getName(), recentMyWords.get(i).getName());
+        assertEquals("Monday, 30 November 2015", recentMyWords.get(0).getName());
+        assertTrue(server.getUrl("10.0.2.2").startsWith("http://10.0.2.2:"));
+    }
+
+    /**
+     * Like ZeeguuConnectionManager.removeBookmarksFromServer: one request per bookmark, all of
+     * them in parallel
+     */
+    @Test
+    public void batchDeleteRemovesAllBookmarks() throws Exception {
+        ArrayList<Long> ids = getIds(getMyWords());
+        assertEquals(BOOKMARKS, ids.size());
+        final ArrayList<Long> deleted = new ArrayList<>(ids.subList(0, 20));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            ArrayList<Future<String>> responses = new ArrayList<>();
+            for (final long id : deleted) {
+                responses.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws IOException {
+                        return request("delete_bookmark/" + id + "?session=" + session, "");
+                    }
+                }));
+            }
+            for (Future<String> response : responses)
+                assertEquals("OK", response.get());
+        } finally {
+            executor.shutdown();
+        }
+
+        ArrayList<Long> remaining = getIds(getMyWords());
+        assertEquals(BOOKMARKS - deleted.size(), remaining.size());
+        for (long id : deleted)
+            assertFalse(remaining.contains(id));
+        assertEquals(deleted.size(), server.getRequestCount("delete_bookmark"));
+
+        // A bookmark that is already deleted cannot be deleted again
+        assertEquals("FAIL", request("delete_bookmark/" + deleted.get(0) + "?session=" + session, ""));
+    }
+
+    private ArrayList<MyWordsHeader> getMyWords() throws IOException, JSONException {
+        return ZeeguuApiJson.parseMyWords(new JSONArray(request("bookmarks_by_day/with_context?session=" + session, null)));
+    }
+
+    private static ArrayList<Long> getIds(ArrayList<MyWordsHeader> myWords) {
+        ArrayList<Long> ids = new ArrayList<>();
+        HashSet<Long> unique = new HashSet<>();
+        for (MyWordsHeader header : myWords) {
+            for (int i = 0; i < header.getChildrenSize(); i++) {
+                if (header.getChild(i) instanceof MyWordsItem) {
+                    ids.add(header.getChild(i).getItemId());
+                    assertTrue(unique.add(header.getChild(i).getItemId()));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * GET without a body, POST with it
+     */
+    private String request(String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(server.getUrl() + path).openConnection();
+        try {
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestMethod("POST");
+                connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+                OutputStream outputStream = connection.getOutputStream();
+                outputStream.write(body.getBytes("UTF-8"));
+                outputStream.close();
+            }
+            assertEquals(200, connection.getResponseCode());
+
+            InputStream inputStream = connection.getInputStream();
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1)
+                response.write(buffer, 0, read);
+            inputStream.close();
+            return response.toString("UTF-8");
+        } finally {
+            connection.disconnect();
+        }
+    }
+}